@@ -0,0 +1,266 @@
+// BotLoadGenerator.java
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gerador de carga sem interface gráfica: abre milhares de bots contra o GameServer
+ * usando um único Selector e o mesmo protocolo do NetworkManager (FrameDecoder + SnapshotCodec).
+ *
+ * Uso: java BotLoadGenerator [bots] [conexões/s] [duração em s] [random|square] [host] [porta]
+ *
+ * Relata taxa de conexão, percentis de latência de recebimento dos snapshots,
+ * bytes por segundo por bot e o tempo de tick observado pelo servidor.
+ */
+public class BotLoadGenerator {
+    private static final String[] MOVES = { "W", "A", "S", "D" };
+    private static final String[] SQUARE_PATTERN = { "D", "S", "A", "W" };
+    private static final long REPORT_INTERVAL_MS = 5000;
+    private static final int MAX_LATENCY_MS = 10_000;
+
+    private final int botCount;
+    private final int connectRate;
+    private final long durationMs;
+    private final boolean squarePattern;
+    private final InetSocketAddress address;
+    private final Selector selector;
+    private final List<Bot> bots = new ArrayList<>();
+    private final Random random = new Random();
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(64 * 1024);
+
+    // Métricas
+    private final long[] latencyHistogram = new long[MAX_LATENCY_MS + 1];
+    private final long[] connectHistogram = new long[MAX_LATENCY_MS + 1];
+    private long bytesReceived;
+    private long snapshotsReceived;
+    private int connectedBots;
+    private int failedBots;          // nunca receberam o welcome
+    private int disconnectedBots;    // caíram depois do welcome
+    private SnapshotCodec.ServerStats lastServerStats;
+
+    public BotLoadGenerator(int botCount, int connectRate, long durationMs, boolean squarePattern,
+                            String host, int port) throws IOException {
+        this.botCount = botCount;
+        this.connectRate = connectRate;
+        this.durationMs = durationMs;
+        this.squarePattern = squarePattern;
+        this.address = new InetSocketAddress(host, port);
+        this.selector = Selector.open();
+    }
+
+    private class Bot {
+        private final SocketChannel channel;
+        private final FrameDecoder decoder = new FrameDecoder();
+        private final long connectStart;
+        private ByteBuffer pendingOutput;
+        private boolean welcomed;
+        private long nextMoveTime;
+        private int patternStep;
+
+        Bot(SocketChannel channel, long connectStart) {
+            this.channel = channel;
+            this.connectStart = connectStart;
+        }
+
+        void send(String message) throws IOException {
+            if (pendingOutput != null && pendingOutput.hasRemaining()) return;   // ainda enviando o anterior
+            pendingOutput = ByteBuffer.wrap((message + "\n").getBytes(StandardCharsets.UTF_8));
+            channel.write(pendingOutput);
+            if (pendingOutput.hasRemaining()) {
+                channel.keyFor(selector).interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            }
+        }
+    }
+
+    public void run() throws IOException {
+        long startTime = System.currentTimeMillis();
+        long endTime = startTime + durationMs;
+        long nextReport = startTime + REPORT_INTERVAL_MS;
+        long connectInterval = Math.max(1, TimeUnit.SECONDS.toNanos(1) / Math.max(1, connectRate));
+        long nextConnect = System.nanoTime();
+        int opened = 0;
+
+        System.out.println("Iniciando " + botCount + " bots contra " + address + " (" + connectRate + " conexões/s)");
+
+        while (System.currentTimeMillis() < endTime) {
+            // Abre novas conexões no ritmo configurado
+            while (opened < botCount && System.nanoTime() >= nextConnect) {
+                openBot();
+                opened++;
+                nextConnect += connectInterval;
+            }
+
+            selector.select(10);
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                Bot bot = (Bot) key.attachment();
+                try {
+                    if (key.isValid() && key.isConnectable()) {
+                        bot.channel.finishConnect();
+                        key.interestOps(SelectionKey.OP_READ);
+                    }
+                    if (key.isValid() && key.isReadable()) {
+                        read(bot);
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        bot.channel.write(bot.pendingOutput);
+                        if (!bot.pendingOutput.hasRemaining()) {
+                            key.interestOps(SelectionKey.OP_READ);
+                        }
+                    }
+                } catch (IOException e) {
+                    closeBot(bot);
+                }
+            }
+
+            long now = System.currentTimeMillis();
+            moveBots(now);
+            if (now >= nextReport) {
+                report(now - startTime, false);
+                nextReport = now + REPORT_INTERVAL_MS;
+            }
+        }
+
+        report(System.currentTimeMillis() - startTime, true);
+        for (Bot bot : bots) {
+            bot.channel.close();
+        }
+        selector.close();
+    }
+
+    private void openBot() {
+        try {
+            SocketChannel channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            Bot bot = new Bot(channel, System.nanoTime());
+            int ops = channel.connect(address) ? SelectionKey.OP_READ : SelectionKey.OP_CONNECT;
+            channel.register(selector, ops, bot);
+            bots.add(bot);
+        } catch (IOException e) {
+            failedBots++;
+        }
+    }
+
+    private void closeBot(Bot bot) {
+        try {
+            bot.channel.close();
+        } catch (IOException e) {
+            // já fechado
+        }
+        if (bot.welcomed) {
+            connectedBots--;
+            disconnectedBots++;
+        } else {
+            failedBots++;
+        }
+    }
+
+    private void read(Bot bot) throws IOException {
+        readBuffer.clear();
+        int count = bot.channel.read(readBuffer);
+        if (count < 0) throw new IOException("Conexão encerrada pelo servidor");
+        bytesReceived += count;
+        readBuffer.flip();
+        bot.decoder.feed(readBuffer);
+
+        long receiveTime = System.currentTimeMillis();
+        ByteBuffer frame;
+        while ((frame = bot.decoder.next()) != null) {
+            byte type = frame.get();
+            if (type == SnapshotCodec.MSG_WELCOME) {
+                bot.welcomed = true;
+                connectedBots++;
+                record(connectHistogram, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - bot.connectStart));
+            } else if (type == SnapshotCodec.MSG_SNAPSHOT) {
+                // Apenas o cabeçalho interessa: tick e hora do servidor
+                SnapshotCodec.getVarLong(frame);
+                long serverTime = SnapshotCodec.getVarLong(frame);
+                record(latencyHistogram, receiveTime - serverTime);
+                snapshotsReceived++;
+            } else if (type == SnapshotCodec.MSG_SERVER_STATS) {
+                lastServerStats = SnapshotCodec.decodeServerStats(frame);
+            }
+        }
+    }
+
+    // Movimento WASD aleatório ou em quadrado, trocando de tecla a cada 0,25–1 s
+    private void moveBots(long now) throws IOException {
+        for (Bot bot : bots) {
+            if (!bot.welcomed || !bot.channel.isOpen() || now < bot.nextMoveTime) continue;
+            String move;
+            if (squarePattern) {
+                move = SQUARE_PATTERN[bot.patternStep++ % SQUARE_PATTERN.length];
+                bot.nextMoveTime = now + 1000;
+            } else {
+                move = random.nextInt(5) == 0 ? "" : MOVES[random.nextInt(MOVES.length)];
+                bot.nextMoveTime = now + 250 + random.nextInt(750);
+            }
+            try {
+                bot.send(move);
+            } catch (IOException e) {
+                closeBot(bot);
+            }
+        }
+    }
+
+    private static void record(long[] histogram, long valueMs) {
+        histogram[(int) Math.max(0, Math.min(MAX_LATENCY_MS, valueMs))]++;
+    }
+
+    private static long percentile(long[] histogram, double fraction) {
+        long total = 0;
+        for (long count : histogram) total += count;
+        if (total == 0) return 0;
+        long target = (long) Math.ceil(total * fraction);
+        long seen = 0;
+        for (int ms = 0; ms < histogram.length; ms++) {
+            seen += histogram[ms];
+            if (seen >= target) return ms;
+        }
+        return MAX_LATENCY_MS;
+    }
+
+    private void report(long elapsedMs, boolean summary) {
+        double seconds = Math.max(1, elapsedMs) / 1000.0;
+        System.out.println((summary ? "=== Resumo" : "---") + String.format(" após %.1fs ===", seconds));
+        System.out.println(String.format("Bots conectados: %d/%d (falhas: %d, desconectados: %d), taxa de conexão: %.1f/s, conexão p50=%dms p99=%dms",
+            connectedBots, botCount, failedBots, disconnectedBots, connectedBots / seconds,
+            percentile(connectHistogram, 0.50), percentile(connectHistogram, 0.99)));
+        System.out.println(String.format("Snapshots: %d, latência p50=%dms p90=%dms p99=%dms max=%dms",
+            snapshotsReceived,
+            percentile(latencyHistogram, 0.50), percentile(latencyHistogram, 0.90),
+            percentile(latencyHistogram, 0.99), percentile(latencyHistogram, 1.0)));
+        System.out.println(String.format("Recebido: %.1f KB/s total, %.0f B/s por bot",
+            bytesReceived / seconds / 1024, bytesReceived / seconds / Math.max(1, connectedBots)));
+        if (lastServerStats != null) {
+            System.out.println(String.format("Servidor: tick %d, %d clientes, tick médio=%.2fms máx=%.2fms, overruns=%d, pendente=%d bytes",
+                lastServerStats.tick, lastServerStats.clients,
+                lastServerStats.averageTickMicros / 1000.0, lastServerStats.maxTickMicros / 1000.0,
+                lastServerStats.overruns, lastServerStats.pendingBytes));
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int bots = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int rate = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        long duration = TimeUnit.SECONDS.toMillis(args.length > 2 ? Long.parseLong(args[2]) : 60);
+        boolean square = args.length > 3 && "square".equalsIgnoreCase(args[3]);
+        String host = args.length > 4 ? args[4] : "localhost";
+        int port = args.length > 5 ? Integer.parseInt(args[5]) : 12345;
+
+        new BotLoadGenerator(bots, rate, duration, square, host, port).run();
+    }
+}
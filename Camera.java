@@ -2,6 +2,7 @@ import java.awt.Point;
 
 public class Camera {
     private Point position;
+    private Point previousPosition;   // posição no passo anterior, para getRenderX/Y
     private Point targetPosition;
     private final int viewportWidth;
     private final int viewportHeight;
@@ -11,6 +12,7 @@ public class Camera {
     
     public Camera(int viewportWidth, int viewportHeight, int mapWidth, int mapHeight) {
         this.position = new Point(0, 0);
+        this.previousPosition = new Point(0, 0);
         this.targetPosition = new Point(0, 0);
         this.viewportWidth = viewportWidth;
         this.viewportHeight = viewportHeight;
@@ -32,6 +34,7 @@ public class Camera {
     }
     
     public void updateInterpolation() {
+        previousPosition.setLocation(position);
         if (!position.equals(targetPosition)) {
             // Interpolação linear
             position.x = position.x + (int)((targetPosition.x - position.x) * CAMERA_INTERPOLATION_SPEED);
@@ -49,6 +52,15 @@ public class Camera {
         return position;
     }
     
+    // Posição entre o passo anterior e o atual (alpha em [0, 1)) para o render em taxa variável
+    public int getRenderX(float alpha) {
+        return previousPosition.x + Math.round((position.x - previousPosition.x) * alpha);
+    }
+    
+    public int getRenderY(float alpha) {
+        return previousPosition.y + Math.round((position.y - previousPosition.y) * alpha);
+    }
+    
     public Point worldToScreen(Point worldPos) {
         return new Point(
             worldPos.x - position.x,
@@ -0,0 +1,143 @@
+// ClientConnection.java
+import java.awt.Rectangle;
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+
+/**
+ * Jogador conectado: conexão, estado autoritativo do movimento e estado de
+ * interesse (entidades já enviadas). A thread de I/O só enfileira comandos
+ * (handleInput); todo o resto pertence ao tick da zona onde o jogador está.
+ * Na troca de zona o objeto passa de um tick para o outro pelas filas da Zone,
+ * que garantem a visibilidade do estado sem travas.
+ */
+public class ClientConnection implements InputRingBuffer.InputConsumer {
+    private static final int INPUT_BUFFER_CAPACITY = 64;            // comandos por cliente entre dois ticks
+    private static final int MAX_INPUTS_PER_TICK = 4;               // passos por tick para recuperar inputs atrasados
+    private static final int MAX_INPUT_DELAY_TICKS = 6;             // jitter tolerado antes de avançar sem input
+
+    private final NioTransport.Connection connection;
+    private final GameCore.PlayerState playerState;
+    private PlayerMovement movement;   // null até entrar na primeira zona
+    private int lastInputSequence;
+    private int inputCredit;   // ticks sem passo de movimento, ainda pagáveis com inputs atrasados
+    private boolean lastStepChanged;
+    private boolean silent;    // avançando sem input: o atraso já foi simulado, não é crédito
+    private boolean insidePortal;   // só atravessa um portal ao entrar nele, não ao chegar sobre ele
+    private volatile boolean closed;
+    // Estado de interesse: entidades já enviadas ao cliente (SnapshotCodec.entityKey) e buffers reutilizáveis
+    BitSet knownEntities = new BitSet();
+    BitSet currentEntities = new BitSet();
+    final InterestGrid.Result visibleEntities = new InterestGrid.Result();
+    final InterestGrid.Result leavingEntities = new InterestGrid.Result();
+    boolean resync;   // zona nova: o próximo snapshot remove tudo que o cliente conhecia e reenvia o visível
+    long backlogSince = 0;
+    // Comandos recebidos pela thread de I/O, consumidos pelo tick
+    private final InputRingBuffer inputBuffer = new InputRingBuffer(INPUT_BUFFER_CAPACITY);
+
+    // connection null: só o estado de interesse, sem transporte (HotPathBenchmark)
+    public ClientConnection(NioTransport.Connection connection, int playerId) {
+        this.connection = connection;
+        this.playerState = new GameCore.PlayerState(playerId, 0, 0);
+    }
+
+    // Chamado pelo tick da zona que adota o jogador: posição e colisão passam a ser as dela
+    public void enterZone(CollisionMap collisionMap, int mapWidth, int mapHeight, int x, int y) {
+        movement = new PlayerMovement(collisionMap, mapWidth, mapHeight, x, y);
+        playerState.getPosition().setLocation(x, y);
+        playerState.setDirection(movement.getDirection());
+        resync = true;
+    }
+
+    public NioTransport.Connection getConnection() { return connection; }
+    public boolean send(ByteBuffer data) { return connection.send(data); }
+    public int getPlayerId() { return playerState.getId(); }
+    public GameCore.PlayerState getPlayerState() { return playerState; }
+    public int getLastInputSequence() { return lastInputSequence; }
+    public long getMovementState() { return movement.encodeState(); }
+    public boolean isMoving() { return movement.isMoving(); }
+    public boolean overlaps(Rectangle area) { return movement.overlaps(area); }
+
+    public boolean isInsidePortal() { return insidePortal; }
+    public void setInsidePortal(boolean insidePortal) { this.insidePortal = insidePortal; }
+
+    // O conjunto calculado no último snapshot enviado passa a ser o conhecido
+    public void commitKnownEntities() {
+        BitSet previous = knownEntities;
+        knownEntities = currentEntities;
+        currentEntities = previous;
+        resync = false;
+    }
+
+    // Desconexão (thread de I/O ou de envio); o tick da zona tira o jogador da lista
+    public void close() {
+        closed = true;
+        connection.close();
+    }
+
+    public boolean isClosed() { return closed; }
+
+    // Chamado pela thread de I/O para cada linha recebida ("<sequência> <comando>"): apenas enfileira
+    public void handleInput(String line) {
+        int space = line.indexOf(' ');
+        int sequence = 0;   // linha sem sequência (ex.: BotLoadGenerator): não confirmada
+        String input = line;
+        if (space >= 0) {
+            try {
+                sequence = Integer.parseInt(line.substring(0, space));
+            } catch (NumberFormatException e) {
+                return;
+            }
+            input = line.substring(space + 1);
+        }
+        byte command = PlayerMovement.parseCommand(input);
+        if (command == PlayerMovement.NO_INPUT) return;   // comando desconhecido
+        if (!inputBuffer.offer(command, sequence)) {
+            System.out.println("Fila de input cheia, comando descartado: jogador " + getPlayerId());
+        }
+    }
+
+    /**
+     * Um passo de movimento por input, como na predição do cliente.
+     * Cada tick rende um crédito; inputs atrasados pelo jitter da rede gastam
+     * o crédito acumulado (até MAX_INPUTS_PER_TICK por tick), então o player
+     * nunca anda mais rápido que o tick. Sem inputs por mais de
+     * MAX_INPUT_DELAY_TICKS, o servidor avança sozinho, sem comando novo,
+     * e o crédito recomeça quando os inputs voltam. Clientes com predição
+     * (inputs numerados) mandam um input por passo e não reaplicam passos sem
+     * comando: para eles o player espera o próximo input e o crédito fica no limite.
+     */
+    public boolean updateMovement() {
+        inputCredit++;
+        if (silent && inputBuffer.size() > 0) {
+            silent = false;
+            inputCredit = 1;
+        }
+        boolean changed = false;
+        int budget = Math.min(inputCredit, MAX_INPUTS_PER_TICK);
+        for (int i = 0; i < budget && inputBuffer.size() > 0; i++) {
+            inputBuffer.drain(this, 1);
+            changed |= lastStepChanged;
+            inputCredit--;
+        }
+        if (inputCredit > MAX_INPUT_DELAY_TICKS) {
+            if (lastInputSequence > 0) {
+                inputCredit = MAX_INPUT_DELAY_TICKS;
+            } else {
+                changed |= movement.step(PlayerMovement.NO_INPUT);
+                inputCredit--;
+                silent = true;
+            }
+        }
+        playerState.getPosition().setLocation(movement.getX(), movement.getY());
+        playerState.setDirection(movement.getDirection());
+        return changed;
+    }
+
+    @Override
+    public void onInput(byte command, int sequence) {
+        lastStepChanged = movement.step(command);
+        if (sequence > lastInputSequence) {
+            lastInputSequence = sequence;
+        }
+    }
+}
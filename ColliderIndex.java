@@ -0,0 +1,132 @@
+// ColliderIndex.java
+import java.awt.Rectangle;
+import java.util.List;
+
+/**
+ * Índice espacial estático dos colisores do mapa.
+ * Os retângulos são expandidos pela margem na construção e distribuídos em
+ * buckets de uma grade uniforme (formato CSR: offsets + itens em arrays).
+ * As consultas visitam apenas os buckets sobrepostos e não alocam nada.
+ */
+public class ColliderIndex {
+    private final int cellSize;
+    private final int originX;
+    private final int originY;
+    private final int columns;
+    private final int rows;
+    private final int[] cellStart;
+    private final int[] cellItems;
+    private final int[] minX;
+    private final int[] minY;
+    private final int[] maxX;
+    private final int[] maxY;
+    private final int count;
+
+    public ColliderIndex(List<Rectangle> colliders, int padding, int cellSize) {
+        this.cellSize = cellSize;
+
+        // Copia os colisores já com a margem aplicada (coordenadas máximas exclusivas)
+        int size = 0;
+        int[] x0 = new int[colliders.size()];
+        int[] y0 = new int[colliders.size()];
+        int[] x1 = new int[colliders.size()];
+        int[] y1 = new int[colliders.size()];
+        int boundsMinX = Integer.MAX_VALUE, boundsMinY = Integer.MAX_VALUE;
+        int boundsMaxX = Integer.MIN_VALUE, boundsMaxY = Integer.MIN_VALUE;
+        for (Rectangle collider : colliders) {
+            int width = collider.width + padding * 2;
+            int height = collider.height + padding * 2;
+            if (width <= 0 || height <= 0) continue;   // Rectangle vazio nunca intercepta
+
+            x0[size] = collider.x - padding;
+            y0[size] = collider.y - padding;
+            x1[size] = x0[size] + width;
+            y1[size] = y0[size] + height;
+            boundsMinX = Math.min(boundsMinX, x0[size]);
+            boundsMinY = Math.min(boundsMinY, y0[size]);
+            boundsMaxX = Math.max(boundsMaxX, x1[size]);
+            boundsMaxY = Math.max(boundsMaxY, y1[size]);
+            size++;
+        }
+        this.count = size;
+        this.minX = x0;
+        this.minY = y0;
+        this.maxX = x1;
+        this.maxY = y1;
+
+        if (size == 0) {
+            originX = originY = 0;
+            columns = rows = 1;
+            cellStart = new int[2];
+            cellItems = new int[0];
+            return;
+        }
+
+        originX = boundsMinX;
+        originY = boundsMinY;
+        columns = (boundsMaxX - boundsMinX + cellSize - 1) / cellSize;
+        rows = (boundsMaxY - boundsMinY + cellSize - 1) / cellSize;
+
+        // Primeira passada: conta quantos colisores caem em cada célula
+        cellStart = new int[columns * rows + 1];
+        for (int i = 0; i < size; i++) {
+            for (int row = rowOf(minY[i]); row <= rowOf(maxY[i] - 1); row++) {
+                for (int column = columnOf(minX[i]); column <= columnOf(maxX[i] - 1); column++) {
+                    cellStart[row * columns + column + 1]++;
+                }
+            }
+        }
+        for (int cell = 0; cell < columns * rows; cell++) {
+            cellStart[cell + 1] += cellStart[cell];
+        }
+
+        // Segunda passada: preenche os itens de cada célula
+        cellItems = new int[cellStart[columns * rows]];
+        int[] fill = new int[columns * rows];
+        for (int i = 0; i < size; i++) {
+            for (int row = rowOf(minY[i]); row <= rowOf(maxY[i] - 1); row++) {
+                for (int column = columnOf(minX[i]); column <= columnOf(maxX[i] - 1); column++) {
+                    int cell = row * columns + column;
+                    cellItems[cellStart[cell] + fill[cell]++] = i;
+                }
+            }
+        }
+    }
+
+    // Mesma semântica de Rectangle.intersects contra os colisores expandidos
+    public boolean intersects(int x, int y, int width, int height) {
+        if (count == 0 || width <= 0 || height <= 0) return false;
+
+        int right = x + width;
+        int bottom = y + height;
+        int firstColumn = Math.max(0, columnOf(x));
+        int lastColumn = Math.min(columns - 1, columnOf(right - 1));
+        int firstRow = Math.max(0, rowOf(y));
+        int lastRow = Math.min(rows - 1, rowOf(bottom - 1));
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                int cell = row * columns + column;
+                for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                    int i = cellItems[k];
+                    if (minX[i] < right && maxX[i] > x && minY[i] < bottom && maxY[i] > y) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    private int columnOf(int x) {
+        return Math.floorDiv(x - originX, cellSize);
+    }
+
+    private int rowOf(int y) {
+        return Math.floorDiv(y - originY, cellSize);
+    }
+}
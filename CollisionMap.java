@@ -0,0 +1,186 @@
+// CollisionMap.java
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Representação compilada dos colisores do mapa, usada pelo servidor e pelo cliente.
+ * Tiles totalmente cobertos por um colisor viram bits em um bitset compacto;
+ * o restante da geometria (partes menores que um tile) é recortado por tile,
+ * mesclado de forma gulosa em retângulos maiores e indexado em um ColliderIndex.
+ * Os testes equivalem a Rectangle.intersects contra os colisores expandidos pela margem.
+ */
+public class CollisionMap {
+    public static final int COLLIDER_BUFFER = 2;   // margem aplicada a cada colisor
+    private static final int RESIDUAL_CELL_SIZE = 64;
+
+    private final int columns;
+    private final int rows;
+    private final int tileWidth;
+    private final int tileHeight;
+    private final int padding;
+    private final long[] blocked;
+    private final List<Rectangle> residual;
+    private final ColliderIndex residualIndex;
+
+    public CollisionMap(List<Rectangle> colliders, int columns, int rows, int tileWidth, int tileHeight, int padding) {
+        this.columns = columns;
+        this.rows = rows;
+        this.tileWidth = tileWidth;
+        this.tileHeight = tileHeight;
+        this.padding = padding;
+        this.blocked = new long[(columns * rows + 63) >>> 6];
+
+        // Primeira passada: tiles inteiramente contidos em algum colisor
+        for (Rectangle collider : colliders) {
+            if (collider.width <= 0 || collider.height <= 0) continue;
+            int firstColumn = Math.max(0, ceilDiv(collider.x, tileWidth));
+            int lastColumn = Math.min(columns, Math.floorDiv(collider.x + collider.width, tileWidth)) - 1;
+            int firstRow = Math.max(0, ceilDiv(collider.y, tileHeight));
+            int lastRow = Math.min(rows, Math.floorDiv(collider.y + collider.height, tileHeight)) - 1;
+            for (int row = firstRow; row <= lastRow; row++) {
+                for (int column = firstColumn; column <= lastColumn; column++) {
+                    int bit = row * columns + column;
+                    blocked[bit >>> 6] |= 1L << bit;
+                }
+            }
+        }
+
+        // Segunda passada: recorta por tile o que não caiu em tiles bloqueados
+        List<Rectangle> pieces = new ArrayList<>();
+        List<Rectangle> degenerate = new ArrayList<>();
+        for (Rectangle collider : colliders) {
+            if (collider.width <= 0 || collider.height <= 0) {
+                degenerate.add(new Rectangle(collider));   // sem área, mas a margem ainda colide
+                continue;
+            }
+            int firstColumn = Math.floorDiv(collider.x, tileWidth);
+            int lastColumn = Math.floorDiv(collider.x + collider.width - 1, tileWidth);
+            int firstRow = Math.floorDiv(collider.y, tileHeight);
+            int lastRow = Math.floorDiv(collider.y + collider.height - 1, tileHeight);
+            for (int row = firstRow; row <= lastRow; row++) {
+                for (int column = firstColumn; column <= lastColumn; column++) {
+                    if (isBlocked(column, row)) continue;
+                    Rectangle tile = new Rectangle(column * tileWidth, row * tileHeight, tileWidth, tileHeight);
+                    pieces.add(tile.intersection(collider));
+                }
+            }
+        }
+
+        this.residual = mergeRectangles(pieces);
+        this.residual.addAll(degenerate);
+        this.residualIndex = new ColliderIndex(residual, padding, RESIDUAL_CELL_SIZE);
+    }
+
+    // Reconstrói a partir das partes já compiladas (CompiledMap), sem refazer recorte e mescla
+    public CollisionMap(int columns, int rows, int tileWidth, int tileHeight, int padding,
+                        long[] blocked, List<Rectangle> residual) {
+        if (blocked.length != (columns * rows + 63) >>> 6) {
+            throw new IllegalArgumentException("Grade de colisão com tamanho inválido: " + blocked.length);
+        }
+        this.columns = columns;
+        this.rows = rows;
+        this.tileWidth = tileWidth;
+        this.tileHeight = tileHeight;
+        this.padding = padding;
+        this.blocked = blocked;
+        this.residual = new ArrayList<>(residual);
+        this.residualIndex = new ColliderIndex(this.residual, padding, RESIDUAL_CELL_SIZE);
+    }
+
+    // Colisores (grupo "colisores") de um mapa, pelo arquivo compilado ou pelo TMX
+    public static CollisionMap load(String mapPath) {
+        return CompiledMap.load(mapPath).getCollisionMap();
+    }
+
+    // Teste O(1) de um tile
+    public boolean isBlocked(int column, int row) {
+        if (column < 0 || row < 0 || column >= columns || row >= rows) return false;
+        int bit = row * columns + column;
+        return (blocked[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    // Verifica se a caixa (x, y, width, height) intercepta algum colisor expandido pela margem
+    public boolean collides(int x, int y, int width, int height) {
+        if (width <= 0 || height <= 0) return false;
+
+        // Expandir a caixa equivale a expandir cada colisor
+        int left = x - padding;
+        int top = y - padding;
+        int right = x + width + padding;
+        int bottom = y + height + padding;
+        int firstColumn = Math.max(0, Math.floorDiv(left, tileWidth));
+        int lastColumn = Math.min(columns - 1, Math.floorDiv(right - 1, tileWidth));
+        int firstRow = Math.max(0, Math.floorDiv(top, tileHeight));
+        int lastRow = Math.min(rows - 1, Math.floorDiv(bottom - 1, tileHeight));
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                if (isBlocked(column, row)) return true;
+            }
+        }
+
+        return residualIndex.intersects(x, y, width, height);
+    }
+
+    // Retângulos equivalentes aos colisores: tiles bloqueados mesclados mais a geometria residual
+    public List<Rectangle> toRectangles() {
+        List<Rectangle> rectangles = new ArrayList<>();
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                if (isBlocked(column, row)) {
+                    rectangles.add(new Rectangle(column * tileWidth, row * tileHeight, tileWidth, tileHeight));
+                }
+            }
+        }
+        List<Rectangle> merged = mergeRectangles(rectangles);
+        merged.addAll(residual);
+        return merged;
+    }
+
+    public int getColumns() { return columns; }
+    public int getRows() { return rows; }
+    public int getTileWidth() { return tileWidth; }
+    public int getTileHeight() { return tileHeight; }
+    public int getResidualCount() { return residual.size(); }
+    public int getPadding() { return padding; }
+    // Partes compiladas, para serialização; não alterar
+    long[] getBlockedBits() { return blocked; }
+    List<Rectangle> getResidual() { return residual; }
+
+    // Tamanho aproximado em bytes dos dados compilados
+    public int getCompiledSize() {
+        return blocked.length * Long.BYTES + residual.size() * 4 * Integer.BYTES;
+    }
+
+    // Mescla gulosa: primeiro faixas horizontais, depois empilha faixas iguais na vertical
+    private static List<Rectangle> mergeRectangles(List<Rectangle> input) {
+        List<Rectangle> rows = new ArrayList<>(input);
+        rows.sort(Comparator.<Rectangle>comparingInt(r -> r.y).thenComparingInt(r -> r.height).thenComparingInt(r -> r.x));
+        List<Rectangle> horizontal = new ArrayList<>();
+        for (Rectangle r : rows) {
+            Rectangle last = horizontal.isEmpty() ? null : horizontal.get(horizontal.size() - 1);
+            if (last != null && last.y == r.y && last.height == r.height && r.x <= last.x + last.width) {
+                last.width = Math.max(last.x + last.width, r.x + r.width) - last.x;
+            } else {
+                horizontal.add(new Rectangle(r));
+            }
+        }
+
+        horizontal.sort(Comparator.<Rectangle>comparingInt(r -> r.x).thenComparingInt(r -> r.width).thenComparingInt(r -> r.y));
+        List<Rectangle> merged = new ArrayList<>();
+        for (Rectangle r : horizontal) {
+            Rectangle last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && last.x == r.x && last.width == r.width && r.y <= last.y + last.height) {
+                last.height = Math.max(last.y + last.height, r.y + r.height) - last.y;
+            } else {
+                merged.add(r);
+            }
+        }
+        return merged;
+    }
+
+    private static int ceilDiv(int value, int divisor) {
+        return -Math.floorDiv(-value, divisor);
+    }
+}
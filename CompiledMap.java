@@ -0,0 +1,357 @@
+// CompiledMap.java
+import java.awt.Rectangle;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Mapa pronto para uso: camadas de tiles, tilesets, grade de colisão compilada
+ * e objetos do mapa (spawns etc.), compartilhado pelo servidor e pelo cliente.
+ *
+ * O MapCompiler grava o mapa em um arquivo binário ao lado do TMX (mapa1.tmx ->
+ * mapa1.map), lido aqui por um MappedByteBuffer sem parse de XML. Formato
+ * (big-endian): [int MAGIC][short VERSION][long tamanho do TMX][long data do TMX]
+ * [int tamanho do payload][int CRC32 do payload][payload]. Se o arquivo compilado
+ * falta, está corrompido, é de outra versão ou o TMX mudou depois da compilação,
+ * load() lê o TMX diretamente.
+ */
+public class CompiledMap {
+    public static final String EXTENSION = ".map";
+    private static final int MAGIC = 0x464D4150;   // "FMAP"
+    private static final short VERSION = 2;   // 2: propriedades dos objetos
+    private static final int HEADER_SIZE = 4 + 2 + 8 + 8 + 4 + 4;
+
+    public static class Tileset {
+        public final int firstGid;
+        public final String name;
+        public final int tileWidth;
+        public final int tileHeight;
+        public final int tileCount;
+        public final int columns;
+        public final String imageSource;   // como está no TMX; cada cliente resolve o caminho
+
+        public Tileset(int firstGid, String name, int tileWidth, int tileHeight, int tileCount, int columns, String imageSource) {
+            this.firstGid = firstGid;
+            this.name = name;
+            this.tileWidth = tileWidth;
+            this.tileHeight = tileHeight;
+            this.tileCount = tileCount;
+            this.columns = columns;
+            this.imageSource = imageSource;
+        }
+    }
+
+    // Objeto de um grupo que não é de colisão (spawns, portais...)
+    public static class MapObject {
+        public final String group;
+        public final String name;
+        public final String type;
+        public final Rectangle bounds;
+        public final Map<String, String> properties;   // <properties> do Tiled, como texto
+
+        public MapObject(String group, String name, String type, Rectangle bounds, Map<String, String> properties) {
+            this.group = group;
+            this.name = name;
+            this.type = type;
+            this.bounds = bounds;
+            this.properties = properties != null
+                ? Collections.unmodifiableMap(new LinkedHashMap<>(properties))
+                : Collections.emptyMap();
+        }
+
+        public String getProperty(String key, String defaultValue) {
+            return properties.getOrDefault(key, defaultValue);
+        }
+    }
+
+    private final int width;        // em tiles
+    private final int height;
+    private final int tileWidth;
+    private final int tileHeight;
+    private final List<Tileset> tilesets;
+    private final List<String> layerNames;
+    private final int[][] layers;   // IDs globais por camada, linha a linha
+    private final CollisionMap collisionMap;
+    private final List<MapObject> objects;
+
+    public CompiledMap(int width, int height, int tileWidth, int tileHeight, List<Tileset> tilesets,
+                       List<String> layerNames, int[][] layers, CollisionMap collisionMap, List<MapObject> objects) {
+        this.width = width;
+        this.height = height;
+        this.tileWidth = tileWidth;
+        this.tileHeight = tileHeight;
+        this.tilesets = Collections.unmodifiableList(new ArrayList<>(tilesets));
+        this.layerNames = Collections.unmodifiableList(new ArrayList<>(layerNames));
+        this.layers = layers;
+        this.collisionMap = collisionMap;
+        this.objects = Collections.unmodifiableList(new ArrayList<>(objects));
+    }
+
+    // Caminho do arquivo compilado correspondente a um TMX
+    public static Path compiledPath(String tmxPath) {
+        String base = tmxPath.endsWith(".tmx") ? tmxPath.substring(0, tmxPath.length() - 4) : tmxPath;
+        return Paths.get(base + EXTENSION);
+    }
+
+    // Arquivo compilado se estiver válido e atualizado; senão o TMX. Mapa vazio se nenhum dos dois abrir.
+    public static CompiledMap load(String tmxPath) {
+        Path compiled = compiledPath(tmxPath);
+        File source = new File(tmxPath);
+        if (Files.isRegularFile(compiled)) {
+            try {
+                CompiledMap map = read(compiled, source);
+                if (map != null) return map;
+                System.out.println("Mapa compilado desatualizado, lendo o TMX: " + compiled);
+            } catch (IOException e) {
+                System.err.println("Mapa compilado inválido (" + e.getMessage() + "), lendo o TMX: " + compiled);
+            }
+        }
+        try {
+            return fromTmx(tmxPath);
+        } catch (Exception e) {
+            System.err.println("Erro ao carregar o mapa: " + tmxPath);
+            e.printStackTrace();
+            return empty();
+        }
+    }
+
+    private static CompiledMap empty() {
+        return new CompiledMap(0, 0, 32, 32, new ArrayList<>(), new ArrayList<>(), new int[0][],
+            new CollisionMap(new ArrayList<>(), 0, 0, 32, 32, CollisionMap.COLLIDER_BUFFER), new ArrayList<>());
+    }
+
+    // ---- TMX ----
+
+    // Leitura em streaming (StAX) do TMX, sem DOM
+    public static CompiledMap fromTmx(String tmxPath) throws IOException {
+        return TmxReader.read(tmxPath);
+    }
+
+    // ---- Binário ----
+
+    // Grava o mapa compilado; sourceTmx identifica a versão do TMX de origem (tamanho e data)
+    public void write(Path target, File sourceTmx) throws IOException {
+        ByteBuffer payload = ByteBuffer.allocate(payloadSize());
+        payload.putInt(width).putInt(height).putInt(tileWidth).putInt(tileHeight);
+
+        payload.putInt(tilesets.size());
+        for (Tileset tileset : tilesets) {
+            payload.putInt(tileset.firstGid);
+            putString(payload, tileset.name);
+            payload.putInt(tileset.tileWidth).putInt(tileset.tileHeight)
+                .putInt(tileset.tileCount).putInt(tileset.columns);
+            putString(payload, tileset.imageSource);
+        }
+
+        payload.putInt(layers.length);
+        for (int l = 0; l < layers.length; l++) {
+            putString(payload, layerNames.get(l));
+            payload.asIntBuffer().put(layers[l]);
+            payload.position(payload.position() + layers[l].length * Integer.BYTES);
+        }
+
+        long[] blocked = collisionMap.getBlockedBits();
+        payload.putInt(collisionMap.getPadding());
+        payload.putInt(blocked.length);
+        payload.asLongBuffer().put(blocked);
+        payload.position(payload.position() + blocked.length * Long.BYTES);
+        List<Rectangle> residual = collisionMap.getResidual();
+        payload.putInt(residual.size());
+        for (Rectangle r : residual) {
+            payload.putInt(r.x).putInt(r.y).putInt(r.width).putInt(r.height);
+        }
+
+        payload.putInt(objects.size());
+        for (MapObject object : objects) {
+            putString(payload, object.group);
+            putString(payload, object.name);
+            putString(payload, object.type);
+            payload.putInt(object.bounds.x).putInt(object.bounds.y)
+                .putInt(object.bounds.width).putInt(object.bounds.height);
+            payload.putInt(object.properties.size());
+            for (Map.Entry<String, String> property : object.properties.entrySet()) {
+                putString(payload, property.getKey());
+                putString(payload, property.getValue());
+            }
+        }
+        payload.flip();
+
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(temporary))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeLong(sourceTmx.length());
+            out.writeLong(sourceTmx.lastModified());
+            out.writeInt(payload.remaining());
+            out.writeInt((int) crc.getValue());
+            out.write(payload.array(), 0, payload.remaining());
+        }
+        // Troca atômica: quem carrega nunca vê um arquivo pela metade
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private int payloadSize() {
+        int size = 4 * Integer.BYTES + Integer.BYTES;
+        for (Tileset tileset : tilesets) {
+            size += 5 * Integer.BYTES + stringSize(tileset.name) + stringSize(tileset.imageSource);
+        }
+        size += Integer.BYTES;
+        for (int l = 0; l < layers.length; l++) {
+            size += stringSize(layerNames.get(l)) + layers[l].length * Integer.BYTES;
+        }
+        size += 2 * Integer.BYTES + collisionMap.getBlockedBits().length * Long.BYTES
+            + Integer.BYTES + collisionMap.getResidual().size() * 4 * Integer.BYTES;
+        size += Integer.BYTES;
+        for (MapObject object : objects) {
+            size += stringSize(object.group) + stringSize(object.name) + stringSize(object.type) + 5 * Integer.BYTES;
+            for (Map.Entry<String, String> property : object.properties.entrySet()) {
+                size += stringSize(property.getKey()) + stringSize(property.getValue());
+            }
+        }
+        return size;
+    }
+
+    // Lê o arquivo compilado; null se o TMX de origem mudou desde a compilação
+    public static CompiledMap read(Path path, File sourceTmx) throws IOException {
+        MappedByteBuffer file;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            if (file.remaining() < HEADER_SIZE || file.getInt() != MAGIC) {
+                throw new IOException("não é um mapa compilado");
+            }
+            short version = file.getShort();
+            if (version != VERSION) {
+                throw new IOException("versão " + version + ", esperada " + VERSION);
+            }
+            long sourceLength = file.getLong();
+            long sourceModified = file.getLong();
+            if (sourceTmx.isFile() && (sourceTmx.length() != sourceLength || sourceTmx.lastModified() != sourceModified)) {
+                return null;
+            }
+            int payloadLength = file.getInt();
+            int checksum = file.getInt();
+            if (payloadLength != file.remaining()) {
+                throw new IOException("tamanho do payload não confere");
+            }
+            CRC32 crc = new CRC32();
+            crc.update(file.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                throw new IOException("checksum não confere");
+            }
+            return readPayload(file);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("payload truncado ou inconsistente", e);
+        }
+    }
+
+    private static CompiledMap readPayload(ByteBuffer in) {
+        int width = in.getInt();
+        int height = in.getInt();
+        int tileWidth = in.getInt();
+        int tileHeight = in.getInt();
+
+        int tilesetCount = in.getInt();
+        List<Tileset> tilesets = new ArrayList<>(tilesetCount);
+        for (int i = 0; i < tilesetCount; i++) {
+            int firstGid = in.getInt();
+            String name = getString(in);
+            tilesets.add(new Tileset(firstGid, name, in.getInt(), in.getInt(), in.getInt(), in.getInt(), getString(in)));
+        }
+
+        int layerCount = in.getInt();
+        List<String> layerNames = new ArrayList<>(layerCount);
+        int[][] layers = new int[layerCount][width * height];
+        for (int l = 0; l < layerCount; l++) {
+            layerNames.add(getString(in));
+            in.asIntBuffer().get(layers[l]);   // cópia em bloco direto da página mapeada
+            in.position(in.position() + layers[l].length * Integer.BYTES);
+        }
+
+        int padding = in.getInt();
+        long[] blocked = new long[in.getInt()];
+        in.asLongBuffer().get(blocked);
+        in.position(in.position() + blocked.length * Long.BYTES);
+        int residualCount = in.getInt();
+        List<Rectangle> residual = new ArrayList<>(residualCount);
+        for (int i = 0; i < residualCount; i++) {
+            residual.add(new Rectangle(in.getInt(), in.getInt(), in.getInt(), in.getInt()));
+        }
+        CollisionMap collisionMap = new CollisionMap(width, height, tileWidth, tileHeight, padding, blocked, residual);
+
+        int objectCount = in.getInt();
+        List<MapObject> objects = new ArrayList<>(objectCount);
+        for (int i = 0; i < objectCount; i++) {
+            String group = getString(in);
+            String name = getString(in);
+            String type = getString(in);
+            Rectangle bounds = new Rectangle(in.getInt(), in.getInt(), in.getInt(), in.getInt());
+            int propertyCount = in.getInt();
+            Map<String, String> properties = new LinkedHashMap<>();
+            for (int p = 0; p < propertyCount; p++) {
+                properties.put(getString(in), getString(in));
+            }
+            objects.add(new MapObject(group, name, type, bounds, properties));
+        }
+
+        return new CompiledMap(width, height, tileWidth, tileHeight, tilesets, layerNames, layers, collisionMap, objects);
+    }
+
+    private static int stringSize(String value) {
+        return Short.BYTES + value.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static void putString(ByteBuffer out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.putShort((short) bytes.length);
+        out.put(bytes);
+    }
+
+    private static String getString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort() & 0xFFFF];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // ---- Consulta ----
+
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public int getTileWidth() { return tileWidth; }
+    public int getTileHeight() { return tileHeight; }
+    public int getPixelWidth() { return width * tileWidth; }
+    public int getPixelHeight() { return height * tileHeight; }
+    public List<Tileset> getTilesets() { return tilesets; }
+    public List<String> getLayerNames() { return layerNames; }
+    public int[][] getLayers() { return layers; }
+    public CollisionMap getCollisionMap() { return collisionMap; }
+    public List<MapObject> getObjects() { return objects; }
+
+    // Objetos de um grupo (ex.: "spawns"), na ordem do TMX
+    public List<MapObject> getObjects(String group) {
+        List<MapObject> result = new ArrayList<>();
+        for (MapObject object : objects) {
+            if (object.group.equals(group)) result.add(object);
+        }
+        return result;
+    }
+}
@@ -1,60 +1,50 @@
 // Entity.java
 import java.awt.Point;
 
+// Visão sobre um slot do EntityStore: o estado fica nas colunas do store
 public abstract class Entity {
     protected final int id;
-    protected Point position;
-    protected Point targetPosition;
-    protected String direction;
-    protected int spriteIndex;
-    protected float movementSpeed;
-    protected EntityState state;
-    
+    protected final EntityStore store;
+    protected final int slot;
+
     public enum EntityState {
         IDLE,
         MOVING,
         INTERACTING
     }
-    
-    public Entity(int id, int x, int y) {
+
+    public Entity(EntityStore store, int id, int x, int y) {
         this.id = id;
-        this.position = new Point(x, y);
-        this.targetPosition = new Point(x, y);
-        this.direction = "down";
-        this.spriteIndex = 0;
-        this.movementSpeed = 1.0f;
-        this.state = EntityState.IDLE;
+        this.store = store;
+        this.slot = store.allocate(this, id, x, y);
     }
-    
+
     public void updateInterpolation() {
-        if (!position.equals(targetPosition)) {
-            float dx = targetPosition.x - position.x;
-            float dy = targetPosition.y - position.y;
-            
-            position.x += dx * movementSpeed;
-            position.y += dy * movementSpeed;
-            
-            if (Math.abs(dx) < 1.5 && Math.abs(dy) < 1.5) {
-                position.x = targetPosition.x;
-                position.y = targetPosition.y;
-                state = EntityState.IDLE;
-            }
-        }
+        store.interpolate(slot);
     }
-    
+
     public abstract void update();
-    
+
     // Getters e setters
     public int getId() { return id; }
-    public Point getPosition() { return position; }
-    public void setPosition(Point position) { this.position = position; }
-    public void setTargetPosition(Point target) { 
-        this.targetPosition = target; 
-        this.state = EntityState.MOVING;
+    public int getSlot() { return slot; }
+    public int getX() { return store.getX(slot); }
+    public int getY() { return store.getY(slot); }
+    // Cópia da posição atual; alterá-la não move a entidade
+    public Point getPosition() { return new Point(store.getX(slot), store.getY(slot)); }
+    public void setPosition(Point position) { store.setPosition(slot, position.x, position.y); }
+    public void setPosition(int x, int y) { store.setPosition(slot, x, y); }
+    public void setTargetPosition(Point target) { setTargetPosition(target.x, target.y); }
+    public void setTargetPosition(int x, int y) {
+        store.setTarget(slot, x, y);
+        store.setState(slot, EntityState.MOVING);
     }
-    public String getDirection() { return direction; }
-    public void setDirection(String direction) { this.direction = direction; }
-    public int getSpriteIndex() { return spriteIndex; }
-    public void setSpriteIndex(int spriteIndex) { this.spriteIndex = spriteIndex; }
-    public EntityState getState() { return state; }
+    public String getDirection() { return SnapshotCodec.directionName(store.getDirectionCode(slot)); }
+    public int getDirectionCode() { return store.getDirectionCode(slot); }
+    public void setDirectionCode(int code) { store.setDirectionCode(slot, code); }
+    public void setDirection(String direction) { store.setDirectionCode(slot, SnapshotCodec.directionCode(direction)); }
+    public int getSpriteIndex() { return store.getSpriteIndex(slot); }
+    public void setSpriteIndex(int spriteIndex) { store.setSpriteIndex(slot, spriteIndex); }
+    public EntityState getState() { return store.getState(slot); }
+    public void setState(EntityState state) { store.setState(slot, state); }
 }
\ No newline at end of file
@@ -0,0 +1,169 @@
+// EntityStore.java
+import java.util.Arrays;
+
+/**
+ * Armazenamento denso de entidades em colunas (struct-of-arrays).
+ * Posição, alvo, direção, estado e sprite ficam em arrays primitivos indexados
+ * por slot; Entity/NPC são apenas visões sobre um slot. Slots liberados vão para
+ * uma free-list e são reutilizados, e um IntIndex resolve id -> slot sem boxing;
+ * ids esparsos (do JSON ou da rede) não aumentam o índice.
+ * Percorrer 0..getSlotLimit() visita todas as entidades em ordem de memória.
+ */
+public class EntityStore {
+    private static final Entity.EntityState[] STATES = Entity.EntityState.values();
+    private static final int INITIAL_CAPACITY = 64;
+
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private int[] xs = new int[INITIAL_CAPACITY];
+    private int[] ys = new int[INITIAL_CAPACITY];
+    private int[] targetXs = new int[INITIAL_CAPACITY];
+    private int[] targetYs = new int[INITIAL_CAPACITY];
+    private float[] speeds = new float[INITIAL_CAPACITY];
+    private byte[] directions = new byte[INITIAL_CAPACITY];
+    private byte[] states = new byte[INITIAL_CAPACITY];
+    private byte[] spriteIndexes = new byte[INITIAL_CAPACITY];
+    private Entity[] entities = new Entity[INITIAL_CAPACITY];
+
+    private int[] freeSlots = new int[INITIAL_CAPACITY];
+    private int freeCount;
+    private int slotLimit;    // slots já usados alguma vez (limite da varredura)
+    private int count;
+    private int version;      // muda a cada allocate/release; índices derivados usam para se invalidar
+    private final IntIndex slotById = new IntIndex(INITIAL_CAPACITY);
+
+    // Reserva um slot para a entidade; um id repetido substitui a entidade anterior
+    public int allocate(Entity entity, int id, int x, int y) {
+        if (id < 0) {
+            throw new IllegalArgumentException("ID de entidade inválido: " + id);
+        }
+        int previous = slotOf(id);
+        if (previous >= 0) {
+            release(previous);
+        }
+
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (slotLimit == ids.length) {
+                grow();
+            }
+            slot = slotLimit++;
+        }
+
+        ids[slot] = id;
+        xs[slot] = x;
+        ys[slot] = y;
+        targetXs[slot] = x;
+        targetYs[slot] = y;
+        speeds[slot] = 1.0f;
+        directions[slot] = 0;
+        states[slot] = (byte) Entity.EntityState.IDLE.ordinal();
+        spriteIndexes[slot] = 0;
+        entities[slot] = entity;
+        count++;
+
+        slotById.put(id, slot);
+        version++;
+        return slot;
+    }
+
+    // Libera o slot; visões antigas deixam de ser válidas
+    public void release(int slot) {
+        if (entities[slot] == null) return;
+        int id = ids[slot];
+        if (slotOf(id) == slot) {
+            slotById.remove(id);
+        }
+        entities[slot] = null;
+        count--;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        }
+        freeSlots[freeCount++] = slot;
+        version++;
+    }
+
+    // Slot da entidade com o id informado, ou -1
+    public int slotOf(int id) {
+        return id >= 0 ? slotById.get(id) : -1;
+    }
+
+    public Entity getEntity(int slot) { return entities[slot]; }
+    public boolean isUsed(int slot) { return entities[slot] != null; }
+    public int getSlotLimit() { return slotLimit; }
+    public int size() { return count; }
+    public int getVersion() { return version; }
+
+    public int getId(int slot) { return ids[slot]; }
+    public int getX(int slot) { return xs[slot]; }
+    public int getY(int slot) { return ys[slot]; }
+    public int getTargetX(int slot) { return targetXs[slot]; }
+    public int getTargetY(int slot) { return targetYs[slot]; }
+    public int getDirectionCode(int slot) { return directions[slot]; }
+    public int getSpriteIndex(int slot) { return spriteIndexes[slot]; }
+    public float getSpeed(int slot) { return speeds[slot]; }
+    public Entity.EntityState getState(int slot) { return STATES[states[slot]]; }
+    public boolean isMoving(int slot) { return states[slot] == Entity.EntityState.MOVING.ordinal(); }
+
+    public void setPosition(int slot, int x, int y) {
+        xs[slot] = x;
+        ys[slot] = y;
+    }
+
+    public void setTarget(int slot, int x, int y) {
+        targetXs[slot] = x;
+        targetYs[slot] = y;
+    }
+
+    public void setDirectionCode(int slot, int code) { directions[slot] = (byte) code; }
+    public void setSpriteIndex(int slot, int spriteIndex) { spriteIndexes[slot] = (byte) spriteIndex; }
+    public void setSpeed(int slot, float speed) { speeds[slot] = speed; }
+    public void setState(int slot, Entity.EntityState state) { states[slot] = (byte) state.ordinal(); }
+
+    // Aproxima a posição do alvo; ao chegar, a entidade volta a IDLE
+    public void interpolate(int slot) {
+        int x = xs[slot];
+        int y = ys[slot];
+        int targetX = targetXs[slot];
+        int targetY = targetYs[slot];
+
+        float dx = targetX - x;
+        float dy = targetY - y;
+        if (Math.abs(dx) < 1.5 && Math.abs(dy) < 1.5) {
+            xs[slot] = targetX;
+            ys[slot] = targetY;
+        } else {
+            xs[slot] = (int) (x + dx * speeds[slot]);
+            ys[slot] = (int) (y + dy * speeds[slot]);
+        }
+        if (xs[slot] == targetX && ys[slot] == targetY && states[slot] == Entity.EntityState.MOVING.ordinal()) {
+            states[slot] = (byte) Entity.EntityState.IDLE.ordinal();
+        }
+    }
+
+    // Varredura linear de movimento; devolve quantas entidades seguem em movimento
+    public int interpolateAll() {
+        int moving = 0;
+        for (int slot = 0; slot < slotLimit; slot++) {
+            if (entities[slot] == null) continue;
+            interpolate(slot);
+            if (states[slot] == Entity.EntityState.MOVING.ordinal()) moving++;
+        }
+        return moving;
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        xs = Arrays.copyOf(xs, capacity);
+        ys = Arrays.copyOf(ys, capacity);
+        targetXs = Arrays.copyOf(targetXs, capacity);
+        targetYs = Arrays.copyOf(targetYs, capacity);
+        speeds = Arrays.copyOf(speeds, capacity);
+        directions = Arrays.copyOf(directions, capacity);
+        states = Arrays.copyOf(states, capacity);
+        spriteIndexes = Arrays.copyOf(spriteIndexes, capacity);
+        entities = Arrays.copyOf(entities, capacity);
+    }
+}
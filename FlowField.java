@@ -0,0 +1,94 @@
+// FlowField.java
+import java.util.Arrays;
+
+/**
+ * Campo de fluxo imutável para um único destino.
+ * Uma BFS a partir do destino calcula a distância de integração de cada tile
+ * caminhável; cada tile guarda a direção do vizinho mais próximo do destino.
+ * Qualquer número de NPCs segue o campo com uma consulta O(1) por passo.
+ */
+public class FlowField {
+    private static final int[] DX = { 0, -1, 0, 1 };
+    private static final int[] DY = { -1, 0, 1, 0 };
+    private static final byte NONE = -1;
+
+    private final int columns;
+    private final int rows;
+    private final int goal;
+    private final int version;
+    private final int[] distances;     // -1 = inalcançável
+    private final byte[] directions;   // índice em DX/DY, ou NONE no destino e em tiles inalcançáveis
+
+    public FlowField(boolean[] walkable, int columns, int rows, int goal, int version) {
+        this.columns = columns;
+        this.rows = rows;
+        this.goal = goal;
+        this.version = version;
+        this.distances = new int[columns * rows];
+        this.directions = new byte[columns * rows];
+        Arrays.fill(distances, -1);
+        Arrays.fill(directions, NONE);
+        if (goal < 0 || goal >= walkable.length || !walkable[goal]) return;
+
+        // Integração: BFS a partir do destino (custo 1 por tile)
+        int[] queue = new int[columns * rows];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = goal;
+        distances[goal] = 0;
+        while (head < tail) {
+            int tile = queue[head++];
+            int x = tile % columns;
+            int y = tile / columns;
+            for (int d = 0; d < 4; d++) {
+                int nx = x + DX[d];
+                int ny = y + DY[d];
+                if (nx < 0 || ny < 0 || nx >= columns || ny >= rows) continue;
+                int next = ny * columns + nx;
+                if (!walkable[next] || distances[next] >= 0) continue;
+                distances[next] = distances[tile] + 1;
+                // A direção aponta de volta para o tile que o alcançou (um passo mais perto)
+                directions[next] = (byte) ((d + 2) & 3);
+                queue[tail++] = next;
+            }
+        }
+    }
+
+    // Próximo tile em direção ao destino, ou -1 no destino ou se inalcançável
+    public int nextTile(int tile) {
+        if (tile < 0 || tile >= directions.length) return -1;
+        byte direction = directions[tile];
+        if (direction == NONE) return -1;
+        return (tile / columns + DY[direction]) * columns + tile % columns + DX[direction];
+    }
+
+    // Tile do campo por onde uma entidade em 'tile' entra: o próprio tile ou,
+    // se ele estiver bloqueado (entidade entre dois tiles), o vizinho mais perto do destino
+    public int entryTile(int tile) {
+        if (isReachable(tile)) return tile;
+        if (tile < 0 || tile >= distances.length) return -1;
+        int x = tile % columns;
+        int y = tile / columns;
+        int best = -1;
+        for (int d = 0; d < 4; d++) {
+            int nx = x + DX[d];
+            int ny = y + DY[d];
+            if (nx < 0 || ny < 0 || nx >= columns || ny >= rows) continue;
+            int neighbor = ny * columns + nx;
+            if (distances[neighbor] >= 0 && (best < 0 || distances[neighbor] < distances[best])) {
+                best = neighbor;
+            }
+        }
+        return best;
+    }
+
+    public int getDistance(int tile) {
+        return tile >= 0 && tile < distances.length ? distances[tile] : -1;
+    }
+
+    public boolean isReachable(int tile) { return getDistance(tile) >= 0; }
+    public int getGoal() { return goal; }
+    public int getVersion() { return version; }
+    public int getColumns() { return columns; }
+    public int getRows() { return rows; }
+}
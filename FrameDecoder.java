@@ -0,0 +1,75 @@
+// FrameDecoder.java
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Decodificador incremental de frames [varint tamanho][payload].
+ * Recebe bytes em pedaços arbitrários (socket bloqueante ou SocketChannel)
+ * e devolve os frames completos; o buffer interno é reutilizado.
+ */
+public class FrameDecoder {
+    private static final int MAX_FRAME_SIZE = 1 << 20;
+
+    private byte[] buffer = new byte[8192];
+    private ByteBuffer view = ByteBuffer.wrap(buffer);   // reaproveitado a cada frame devolvido
+    private int start;
+    private int end;
+
+    public void feed(byte[] data, int offset, int length) {
+        makeRoom(length);
+        System.arraycopy(data, offset, buffer, end, length);
+        end += length;
+    }
+
+    public void feed(ByteBuffer data) {
+        int length = data.remaining();
+        makeRoom(length);
+        data.get(buffer, end, length);
+        end += length;
+    }
+
+    // Próximo frame completo (sem o prefixo de tamanho), ou null se faltam bytes.
+    // O ByteBuffer devolvido é sempre o mesmo objeto e só é válido até a próxima
+    // chamada de feed() ou next(); o frame vai de position() a limit().
+    public ByteBuffer next() throws IOException {
+        int length = 0;
+        int position = start;
+        for (int shift = 0; ; shift += 7) {
+            if (position == end) return null;
+            int b = buffer[position++] & 0xFF;
+            length |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) break;
+            if (shift >= 28) throw new IOException("Tamanho de frame inválido");
+        }
+        if (length <= 0 || length > MAX_FRAME_SIZE) {
+            throw new IOException("Tamanho de frame inválido: " + length);
+        }
+        if (end - position < length) return null;
+
+        start = position + length;
+        if (view.array() != buffer) {
+            view = ByteBuffer.wrap(buffer);   // o buffer cresceu
+        }
+        view.clear();
+        view.position(position).limit(position + length);
+        return view;
+    }
+
+    private void makeRoom(int length) {
+        if (start == end) {
+            start = end = 0;
+        }
+        if (buffer.length - end >= length) return;
+
+        // Compacta os bytes pendentes no início e cresce se ainda faltar espaço
+        int pending = end - start;
+        byte[] target = buffer;
+        if (pending + length > buffer.length) {
+            target = new byte[Math.max(pending + length, buffer.length * 2)];
+        }
+        System.arraycopy(buffer, start, target, 0, pending);
+        buffer = target;
+        start = 0;
+        end = pending;
+    }
+}
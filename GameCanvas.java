@@ -0,0 +1,58 @@
+// GameCanvas.java
+import java.awt.Canvas;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Toolkit;
+import java.awt.image.BufferStrategy;
+
+/**
+ * Superfície única do cliente em renderização ativa.
+ * O game loop desenha mapa e entidades em uma passada no back buffer do
+ * BufferStrategy e chama show(); o Swing/EDT não participa e repaint() é ignorado.
+ * Segue o laço de contentsRestored/contentsLost recomendado para BufferStrategy.
+ */
+public class GameCanvas extends Canvas {
+    private final TiledMapRenderer mapRenderer;
+    private final SpriteRenderer spriteRenderer;
+    private BufferStrategy strategy;
+
+    public GameCanvas(TiledMapRenderer mapRenderer, SpriteRenderer spriteRenderer) {
+        this.mapRenderer = mapRenderer;
+        this.spriteRenderer = spriteRenderer;
+        setIgnoreRepaint(true);
+        setFocusable(true);
+        setBackground(mapRenderer.getBackground());
+    }
+
+    // Só pode ser chamado depois que a janela estiver visível
+    public void createBuffers() {
+        createBufferStrategy(2);
+        strategy = getBufferStrategy();
+    }
+
+    // Desenha um frame com a câmera em (cameraX, cameraY); chamado apenas pela thread do game loop
+    public void render(int cameraX, int cameraY) {
+        if (strategy == null) return;
+
+        int width = getWidth();
+        int height = getHeight();
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+        do {
+            do {
+                Graphics2D g = (Graphics2D) strategy.getDrawGraphics();
+                try {
+                    g.setColor(getBackground());
+                    g.fillRect(0, 0, width, height);
+                    mapRenderer.renderMap(g, gc, cameraX, cameraY, width, height);
+                    spriteRenderer.renderEntities(g, cameraX, cameraY, width, height);
+                } finally {
+                    g.dispose();
+                }
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
+
+        // Em X11 o show() pode ficar na fila do servidor gráfico; sync mantém o ritmo dos frames
+        Toolkit.getDefaultToolkit().sync();
+    }
+}
@@ -1,34 +1,48 @@
 import javax.swing.*;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
-import java.awt.Point;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class GameClient {
     private JFrame frame;
     private SpriteRenderer renderer;
     private TiledMapRenderer mapRenderer;
+    private GameCanvas canvas;
+    private RenderLoop loop;
     private NetworkManager network;
     private InputHandler input;
-    private NPCManager npcManager;  // Novo campo para gerenciar NPCs
-    private Map<Integer, GameCore.PlayerState> players;
-    private Map<Integer, Long> lastPlayerAnimationTimes;
     private int playerId;
-    private boolean isMoving;
-    private static final int ANIMATION_CHECK_INTERVAL = 16;
-    private static final int INTERPOLATION_INTERVAL = 16;
+    private PlayerPrediction prediction;
+    private String currentMapPath;   // mapa da zona atual (thread de rede)
+    // Mapa da zona nova, carregado pela thread de rede e aplicado ao desenho pelo game loop
+    private final AtomicReference<CompiledMap> pendingMap = new AtomicReference<>();
+    // Atraso de renderização das entidades remotas (ms); maior = mais tolerante a jitter
+    private static final long INTERPOLATION_DELAY = Long.getLong("interpolation.delay", 100);
+    // Limite de frames desenhados por segundo (0 = sem limite); a lógica segue em passos fixos
+    private static final int MAX_RENDER_FPS = Integer.getInteger("render.fps", 120);
     private Camera camera;
-    private Map<Integer, Long> lastDirectionChangeTime = new HashMap<>();
+    // Posição prevista do player local no passo anterior e no atual, interpolada no render
+    private int previousPlayerX, previousPlayerY, currentPlayerX, currentPlayerY;
+    private boolean hasPlayerStep;
+    // Entidades visíveis por ID, com as amostras dos snapshots desenhadas INTERPOLATION_DELAY no passado
+    private final RemoteWorld world;
+    private final RemoteEntityTable<GameCore.PlayerState> remotePlayers;
+    private final RemoteEntityTable<NPC> remoteNPCs;
+    private final InterpolationBuffer.Clock serverClock;
 
     public GameClient() {
-        players = new HashMap<>();
-        lastPlayerAnimationTimes = new HashMap<>();
         network = new NetworkManager();
         renderer = new SpriteRenderer();
         mapRenderer = new TiledMapRenderer();
-        input = new InputHandler(this::handleInput);
-        npcManager = new NPCManager();  // Inicializa o gerenciador de NPCs
-        isMoving = false;
+        // As teclas são lidas uma vez por passo no game loop (um input numerado por passo)
+        input = new InputHandler(() -> {});
+        // A predição só existe depois da janela (mapa carregado); a confirmação chega depois da conexão
+        world = new RemoteWorld(INTERPOLATION_DELAY, renderer.getAtlas(),
+            (sequence, x, y, movementState) -> prediction.reconcile(sequence, x, y, movementState));
+        remotePlayers = world.getRemotePlayers();
+        remoteNPCs = world.getRemoteNPCs();
+        serverClock = world.getServerClock();
     }
 
     public void start() {
@@ -41,36 +55,38 @@ public class GameClient {
         frame = new JFrame("MMO Simples");
         frame.setSize(800, 600);
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        JLayeredPane layeredPane = new JLayeredPane();
-        layeredPane.setPreferredSize(frame.getSize());
-        mapRenderer.loadMap("resources/maps/mapa1.tmx");
+        currentMapPath = "resources/maps/mapa1.tmx";
+        mapRenderer.loadMap(currentMapPath);
         camera = new Camera(
             frame.getWidth(),
             frame.getHeight(),
             mapRenderer.getMapWidth() * mapRenderer.getTileWidth(),
             mapRenderer.getMapHeight() * mapRenderer.getTileHeight()
         );
-        mapRenderer.setCamera(camera);
-        renderer.setCamera(camera);
-        mapRenderer.setBounds(0, 0, frame.getWidth(), frame.getHeight());
-        layeredPane.add(mapRenderer, Integer.valueOf(0));
-        renderer.setBounds(0, 0, frame.getWidth(), frame.getHeight());
-        renderer.setOpaque(false);
-        layeredPane.add(renderer, Integer.valueOf(1));
-        frame.add(layeredPane);
+        // Mesma colisão e limites do servidor para prever o movimento do player local
+        prediction = new PlayerPrediction(
+            mapRenderer.getCollisionMap(),
+            mapRenderer.getMapWidth() * mapRenderer.getTileWidth(),
+            mapRenderer.getMapHeight() * mapRenderer.getTileHeight()
+        );
+        renderer.setPlayers(world.getPlayers());
+        renderer.setNPCStore(world.getNPCStore());
+        // Mapa e entidades desenhados em uma passada no mesmo Canvas, pelo game loop
+        canvas = new GameCanvas(mapRenderer, renderer);
+        frame.add(canvas);
         frame.addKeyListener(input);
+        canvas.addKeyListener(input);
         frame.setResizable(false);
         frame.setLocationRelativeTo(null);
         frame.setVisible(true);
-
-        // Carregar NPCs do mapa
-        npcManager.loadNPCsFromMap("resources/npcs/mapa1_npcs.json");
+        canvas.createBuffers();
+        canvas.requestFocus();
     }
 
     private void connectToServer() {
         try {
             network.connect(this::handleServerMessage);
-            playerId = Integer.parseInt(network.readInitialMessage());
+            playerId = network.getPlayerId();
             System.out.println("Conectado com ID: " + playerId);
         } catch (IOException e) {
             System.out.println("Erro ao conectar: " + e.getMessage());
@@ -78,184 +94,147 @@ public class GameClient {
         }
     }
 
-    private void handleServerMessage(String message) {
-        if (message.startsWith("Jogador")) {
-            System.out.println(message);
+    private void handleServerMessage(ByteBuffer message) {
+        byte type = message.get();
+        if (type == SnapshotCodec.MSG_ZONE) {
+            changeZone(SnapshotCodec.decodeZone(message));
             return;
         }
-    
-        Map<Integer, GameCore.PlayerState> newPlayers = new HashMap<>();
-        Map<Integer, NPC> newNPCs = new HashMap<>();
-        
-        long currentTime = System.currentTimeMillis();
-        
-        String[] entityData = message.split(",");
-        
-        for (int i = 0; i < entityData.length; i += 7) {  // Avança de 7 em 7 para players, ou 8 para NPCs
-            if (i + 6 >= entityData.length) break;
-            
-            String type = entityData[i];
-            int id = Integer.parseInt(entityData[i + 1]);
-            int x = Integer.parseInt(entityData[i + 2]);
-            int y = Integer.parseInt(entityData[i + 3]);
-            String direction = entityData[i + 4];
-            int spriteIndex = Integer.parseInt(entityData[i + 5]);
-            
-            if (type.equals("P")) {
-                boolean isPlayerMoving = Boolean.parseBoolean(entityData[i + 6]);
-                GameCore.PlayerState state = processPlayerState(
-                    id, x, y, isPlayerMoving, currentTime, direction
-                );
-                newPlayers.put(id, state);
-            } else if (type.equals("N")) {
-                if (i + 7 >= entityData.length) break;
-                String npcType = entityData[i + 7];
-                NPC npc = npcManager.getNPCs().get(id);
-                if (npc == null) {
-                    npc = new NPC(id, x, y, npcType, NPC.NPCBehavior.WANDER);
-                    npcManager.addNPC(npc);
-                }
-                npc.setPosition(new Point(x, y));
-                npc.setDirection(direction);
-                npc.setSpriteIndex(spriteIndex);
-                npc.state = Boolean.parseBoolean(entityData[i + 6]) ? 
-                    Entity.EntityState.MOVING : Entity.EntityState.IDLE;
-                newNPCs.put(id, npc);
-                i++; // Ajusta o índice para o campo extra do NPC
-            }
+        if (type != SnapshotCodec.MSG_SNAPSHOT) {
+            return;
         }
         
-        // Atualiza players e NPCs
-        if (!players.equals(newPlayers)) {
-            players = newPlayers;
-            SwingUtilities.invokeLater(() -> {
-                renderer.updatePlayers(players);
-                renderer.updateNPCs(newNPCs);
-            });
-        }
+        // O servidor envia apenas entidades próximas; as demais chegam como eventos de saída
+        world.decodeSnapshot(message);
     }
-    // Método extraído para processamento de estado do player
-    private GameCore.PlayerState processPlayerState(int id, int x, int y, boolean isPlayerMoving, long currentTime, String direction) {
-        GameCore.PlayerState state;
-        if (!players.containsKey(id)) {
-            state = new GameCore.PlayerState(id, x, y);
-            lastPlayerAnimationTimes.put(id, currentTime);
-            lastDirectionChangeTime.put(id, currentTime);
-        } else {
-            state = players.get(id);
-            Point currentPos = state.getPosition();
-            Point newPos = new Point(x, y);
-            
-            double distance = currentPos.distance(newPos);
-            
-            if (distance > 100) {
-                state.setPosition(newPos);
-                state.setTargetPosition(newPos, direction);
-            } else {
-                long timeSinceLastDirectionChange = currentTime - lastDirectionChangeTime.getOrDefault(id, currentTime);
-                
-                if (!state.getDirection().equals(direction)) {
-                    if (timeSinceLastDirectionChange < 200) {
-                        direction = state.getDirection();
-                    } else {
-                        lastDirectionChangeTime.put(id, currentTime);
-                    }
-                }
-                
-                state.setDirection(direction);
-                state.setTargetPosition(newPos, direction);
-            }
-            
-            if (isPlayerMoving) {
-                long lastTime = lastPlayerAnimationTimes.getOrDefault(id, currentTime);
-                if (currentTime - lastTime >= GameCore.GameState.getAnimationSpeed()) {
-                    state.setSpriteIndex((state.getSpriteIndex() + 1) % 2);
-                    lastPlayerAnimationTimes.put(id, currentTime);
-                }
-            } else {
-                state.setSpriteIndex(0);
-            }
-        }
-        return state;
+
+    // Chega antes do primeiro snapshot da zona: a predição passa a usar a colisão nova já aqui
+    private void changeZone(SnapshotCodec.ZoneInfo zone) {
+        if (zone.mapPath.equals(currentMapPath)) return;
+        currentMapPath = zone.mapPath;
+        System.out.println("Entrando na zona " + zone.name);
+        CompiledMap map = CompiledMap.load(zone.mapPath);
+        prediction.changeMap(map.getCollisionMap(), map.getPixelWidth(), map.getPixelHeight());
+        pendingMap.set(map);
+    }
+
+    // Passo fixo: mapa desenhado e câmera da zona nova
+    private void applyPendingMap() {
+        CompiledMap map = pendingMap.getAndSet(null);
+        if (map == null) return;
+        mapRenderer.loadMap(map);
+        camera = new Camera(
+            frame.getWidth(),
+            frame.getHeight(),
+            mapRenderer.getMapWidth() * mapRenderer.getTileWidth(),
+            mapRenderer.getMapHeight() * mapRenderer.getTileHeight()
+        );
+        hasPlayerStep = false;
     }
-    
 
+    // Um input por passo: aplicado na predição e enviado com seu número de sequência
     private void handleInput() {
-        // Código de input existente (sem modificações)
-        GameCore.PlayerState currentPlayer = players.get(playerId);
-        if (currentPlayer == null) return;
+        if (!prediction.isReady()) return;
     
-        if (input.hasOppositeKeysPressed()) {
-            isMoving = false;
-            network.sendMessage("");
-            return;
+        byte command = PlayerMovement.RELEASE;
+        if (!input.hasOppositeKeysPressed()) {
+            if (input.isKeyPressed(0)) command = PlayerMovement.UP;
+            if (input.isKeyPressed(1)) command = PlayerMovement.LEFT;
+            if (input.isKeyPressed(2)) command = PlayerMovement.DOWN;
+            if (input.isKeyPressed(3)) command = PlayerMovement.RIGHT;
         }
-    
-        String move = "";
         
-        if (input.isKeyPressed(0)) {
-            move = "W";
-            isMoving = true;
-        }
-        if (input.isKeyPressed(1)) {
-            move = "A";
-            isMoving = true;
-        }
-        if (input.isKeyPressed(2)) {
-            move = "S";
-            isMoving = true;
+        int sequence = prediction.predict(command);
+        network.sendMessage(sequence + " " + PlayerMovement.commandName(command));
+    }
+
+    // Passo fixo: posição prevista do player local e câmera
+    private void updateLocalPlayer() {
+        if (!prediction.isReady()) return;
+        GameCore.PlayerState player = remotePlayers.get(playerId);
+        if (player == null) return;
+        
+        animate(player, prediction.applyTo(player), System.currentTimeMillis());
+        previousPlayerX = hasPlayerStep ? currentPlayerX : player.getPosition().x;
+        previousPlayerY = hasPlayerStep ? currentPlayerY : player.getPosition().y;
+        currentPlayerX = player.getPosition().x;
+        currentPlayerY = player.getPosition().y;
+        hasPlayerStep = true;
+        camera.centerOn(player.getPosition());
+        camera.updateInterpolation();
+    }
+
+    // Por frame: entidades remotas amostradas no instante de renderização e player local interpolado por alpha
+    private void render(float alpha) {
+        long currentTime = System.currentTimeMillis();
+        long renderTime = serverClock.renderTime(currentTime);
+        world.applyChanges();
+        GameCore.PlayerState localPlayer = remotePlayers.get(playerId);
+        if (localPlayer != null && hasPlayerStep) {
+            localPlayer.getPosition().setLocation(
+                previousPlayerX + Math.round((currentPlayerX - previousPlayerX) * alpha),
+                previousPlayerY + Math.round((currentPlayerY - previousPlayerY) * alpha));
         }
-        if (input.isKeyPressed(3)) {
-            move = "D";
-            isMoving = true;
+        
+        for (int i = 0; i < remotePlayers.size(); i++) {
+            int id = remotePlayers.getId(i);
+            if (id == playerId) continue;
+            GameCore.PlayerState player = remotePlayers.get(id);
+            InterpolationBuffer samples = remotePlayers.getSamples(id);
+            if (player == null || samples == null || !samples.sample(renderTime)) continue;
+            player.getPosition().setLocation(samples.getX(), samples.getY());
+            player.setDirectionCode(samples.getDirectionCode());
+            animate(player, samples.isMoving(), currentTime);
         }
         
-        if (isMoving && !move.isEmpty()) {
-            network.sendMessage(move);
-        } else {
-            isMoving = false;
-            network.sendMessage("");
+        // NPCs: posição interpolada entre snapshots, sem simulação local
+        for (int i = 0; i < remoteNPCs.size(); i++) {
+            int id = remoteNPCs.getId(i);
+            NPC npc = remoteNPCs.get(id);
+            InterpolationBuffer samples = remoteNPCs.getSamples(id);
+            if (npc == null || samples == null || !samples.sample(renderTime)) continue;
+            if (npc.getSpriteBase() == SpriteAtlas.LOADING) {
+                npc.setSpriteBase(renderer.getAtlas().requestNPC(npc.getNPCType()));
+            }
+            npc.setPosition(samples.getX(), samples.getY());
+            npc.setDirectionCode(samples.getDirectionCode());
+            npc.setSpriteIndex(samples.getSpriteIndex());
+            npc.setState(samples.isMoving() ? Entity.EntityState.MOVING : Entity.EntityState.IDLE);
         }
+        
+        canvas.render(camera.getRenderX(alpha), camera.getRenderY(alpha));
     }
 
-    private void updateInterpolation() {
-        for (GameCore.PlayerState player : players.values()) {
-            player.updateInterpolation();
-            if (player.getId() == playerId) {
-                camera.centerOn(player.getPosition());
-            }
+    // Os players alternam os dois quadros de caminhada enquanto andam
+    private void animate(GameCore.PlayerState player, boolean moving, long currentTime) {
+        if (!moving) {
+            player.setSpriteIndex(0);
+            return;
         }
-        
-        // Atualiza interpolação dos NPCs
-        for (NPC npc : npcManager.getNPCs().values()) {
-            npc.updateInterpolation();
+        if (currentTime - player.getAnimationTime() >= GameCore.GameState.getAnimationSpeed()) {
+            player.setSpriteIndex((player.getSpriteIndex() + 1) % 2);
+            player.setAnimationTime(currentTime);
         }
-        
-        camera.updateInterpolation();
-        SwingUtilities.invokeLater(() -> {
-            renderer.updatePlayers(players);
-            renderer.updateNPCs(npcManager.getNPCs());
-        });
     }
 
     private void startGameLoop() {
-        // Thread dedicada para processamento de input e lógica
-        Thread gameThread = new Thread(() -> {
-            while (true) {
-                handleInput();
-                updateInterpolation();
-                
-                try {
-                    // ~60 fps (16.66ms)
-                    Thread.sleep(16);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
+        // Lógica em passos fixos, iguais ao tick do servidor (a predição dá um passo por input);
+        // frames desenhados na taxa que a máquina aguentar, até MAX_RENDER_FPS
+        loop = new RenderLoop("game-loop", TimeUnit.MILLISECONDS.toNanos(PlayerMovement.STEP_MILLIS), MAX_RENDER_FPS,
+            new RenderLoop.Listener() {
+                @Override
+                public void update() {
+                    applyPendingMap();
+                    handleInput();
+                    updateLocalPlayer();
                 }
-            }
-        });
-        
-        gameThread.setPriority(Thread.MAX_PRIORITY);
-        gameThread.start();
+
+                @Override
+                public void render(float alpha) {
+                    GameClient.this.render(alpha);
+                }
+            });
+        loop.start();
     }
 
     public static void main(String[] args) {
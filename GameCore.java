@@ -2,61 +2,29 @@ import java.awt.Point;
 
 public class GameCore {
     public static class PlayerState {
-        private Point position;          // posição atual visual
-        private Point targetPosition;    // posição alvo (recebida do servidor)
-        private String direction;
+        private Point position;          // posição atual (no cliente: prevista ou interpolada)
+        private int directionCode;       // código do SnapshotCodec (0 = down)
         private int spriteIndex;
+        private long animationTime;      // cliente: última troca do quadro de caminhada
         private final int id;
-        private static final float INTERPOLATION_SPEED = 0.15f; // Ajustado para ser mais suave
         
         public PlayerState(int id, int x, int y) {
             this.id = id;
             this.position = new Point(x, y);
-            this.targetPosition = new Point(x, y);
-            this.direction = "down";
+            this.directionCode = 0;
             this.spriteIndex = 0;
         }
         
-        public void setTargetPosition(Point target, String newDirection) {
-            if (!direction.equals(newDirection)) {
-                float smoothFactor = 0.5f; // Reduzido para ser mais suave
-                this.position = new Point(
-                    position.x + (int)((target.x - position.x) * smoothFactor),
-                    position.y + (int)((target.y - position.y) * smoothFactor)
-                );
-            }
-            this.targetPosition = target;
-            this.direction = newDirection;
-        }
-        
-        public void updateInterpolation() {
-            if (!position.equals(targetPosition)) {
-                double dx = targetPosition.x - position.x;
-                double dy = targetPosition.y - position.y;
-                
-                // Usa double para cálculos mais precisos e evitar microtravamentos
-                double newX = position.x + dx * INTERPOLATION_SPEED;
-                double newY = position.y + dy * INTERPOLATION_SPEED;
-                
-                // Arredonda para o pixel mais próximo
-                position.x = (int)Math.round(newX);
-                position.y = (int)Math.round(newY);
-                
-                // Snap to target se estiver muito próximo
-                if (Math.abs(dx) < 1.5 && Math.abs(dy) < 1.5) {
-                    position.x = targetPosition.x;
-                    position.y = targetPosition.y;
-                }
-            }
-        }
-        
         public Point getPosition() { return position; }
-        public Point getTargetPosition() { return targetPosition; }
         public void setPosition(Point position) { this.position = position; }
-        public String getDirection() { return direction; }
-        public void setDirection(String direction) { this.direction = direction; }
+        public String getDirection() { return SnapshotCodec.directionName(directionCode); }
+        public void setDirection(String direction) { this.directionCode = SnapshotCodec.directionCode(direction); }
+        public int getDirectionCode() { return directionCode; }
+        public void setDirectionCode(int directionCode) { this.directionCode = directionCode; }
         public int getSpriteIndex() { return spriteIndex; }
         public void setSpriteIndex(int spriteIndex) { this.spriteIndex = spriteIndex; }
+        public long getAnimationTime() { return animationTime; }
+        public void setAnimationTime(long animationTime) { this.animationTime = animationTime; }
         public int getId() { return id; }
     }
 
@@ -0,0 +1,380 @@
+// HierarchicalPathfinder.java
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Pathfinding hierárquico (HPA*) sobre a grade de tiles caminháveis.
+ * O mapa é dividido em clusters de CLUSTER_SIZE x CLUSTER_SIZE tiles; cada trecho
+ * caminhável da borda entre dois clusters vira uma ou duas transições, e dentro de
+ * cada cluster as transições são ligadas pela distância real (BFS local).
+ * Uma consulta conecta início e destino aos nós do próprio cluster, roda A* no
+ * grafo abstrato e refina cada salto com buscas limitadas a um cluster.
+ * O grafo é imutável depois da construção: consultas podem rodar em paralelo.
+ * Movimento em 4 direções com custo 1 por tile.
+ */
+public class HierarchicalPathfinder {
+    private static final int CLUSTER_SIZE = 16;
+    private static final int MAX_SINGLE_TRANSITION = 6;   // trechos menores ganham uma transição no meio
+    private static final int[] DX = { 0, -1, 0, 1 };
+    private static final int[] DY = { -1, 0, 1, 0 };
+
+    private final int columns;
+    private final int rows;
+    private final boolean[] walkable;
+    private final int clusterColumns;
+    private final int clusterRows;
+
+    // Grafo abstrato em CSR
+    private final int nodeCount;
+    private final int[] nodeTiles;
+    private final int[] edgeStart;
+    private final int[] edgeTargets;
+    private final int[] edgeCosts;
+    private final int[][] clusterNodes;   // nós de cada cluster
+
+    public HierarchicalPathfinder(boolean[] walkable, int columns, int rows) {
+        this.columns = columns;
+        this.rows = rows;
+        this.walkable = walkable;
+        this.clusterColumns = Math.max(1, (columns + CLUSTER_SIZE - 1) / CLUSTER_SIZE);
+        this.clusterRows = Math.max(1, (rows + CLUSTER_SIZE - 1) / CLUSTER_SIZE);
+
+        // Transições entre clusters vizinhos
+        int[] tileNode = new int[columns * rows];
+        Arrays.fill(tileNode, -1);
+        List<Integer> tiles = new ArrayList<>();
+        List<int[]> edges = new ArrayList<>();
+        for (int cy = 0; cy < clusterRows; cy++) {
+            for (int cx = 0; cx < clusterColumns; cx++) {
+                int x0 = cx * CLUSTER_SIZE;
+                int y0 = cy * CLUSTER_SIZE;
+                int x1 = Math.min(columns, x0 + CLUSTER_SIZE);
+                int y1 = Math.min(rows, y0 + CLUSTER_SIZE);
+                if (x1 < columns) {
+                    // Borda vertical com o cluster da direita
+                    scanBorder(x1 - 1, y0, 0, 1, y1 - y0, 1, 0, tileNode, tiles, edges);
+                }
+                if (y1 < rows) {
+                    // Borda horizontal com o cluster de baixo
+                    scanBorder(x0, y1 - 1, 1, 0, x1 - x0, 0, 1, tileNode, tiles, edges);
+                }
+            }
+        }
+        this.nodeCount = tiles.size();
+        this.nodeTiles = new int[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            nodeTiles[i] = tiles.get(i);
+        }
+
+        // Nós agrupados por cluster
+        int[] perCluster = new int[clusterColumns * clusterRows];
+        for (int node = 0; node < nodeCount; node++) {
+            perCluster[clusterOf(nodeTiles[node])]++;
+        }
+        this.clusterNodes = new int[perCluster.length][];
+        for (int cluster = 0; cluster < perCluster.length; cluster++) {
+            clusterNodes[cluster] = new int[perCluster[cluster]];
+            perCluster[cluster] = 0;
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            int cluster = clusterOf(nodeTiles[node]);
+            clusterNodes[cluster][perCluster[cluster]++] = node;
+        }
+
+        // Arestas internas: distância real entre as transições de cada cluster
+        for (int[] nodes : clusterNodes) {
+            for (int from : nodes) {
+                int[] distances = localDistances(nodeTiles[from]);
+                for (int to : nodes) {
+                    if (to == from) continue;
+                    int distance = distances[localIndex(nodeTiles[to])];
+                    if (distance > 0) {
+                        edges.add(new int[] { from, to, distance });
+                    }
+                }
+            }
+        }
+
+        this.edgeStart = new int[nodeCount + 1];
+        for (int[] edge : edges) {
+            edgeStart[edge[0] + 1]++;
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            edgeStart[node + 1] += edgeStart[node];
+        }
+        this.edgeTargets = new int[edges.size()];
+        this.edgeCosts = new int[edges.size()];
+        int[] cursor = Arrays.copyOf(edgeStart, nodeCount);
+        for (int[] edge : edges) {
+            int index = cursor[edge[0]]++;
+            edgeTargets[index] = edge[1];
+            edgeCosts[index] = edge[2];
+        }
+    }
+
+    // Percorre a borda a partir de (x, y) no passo (stepX, stepY); o vizinho fica em (+crossX, +crossY)
+    private void scanBorder(int x, int y, int stepX, int stepY, int length, int crossX, int crossY,
+                            int[] tileNode, List<Integer> tiles, List<int[]> edges) {
+        int segmentStart = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean open = i < length
+                && isWalkable(x + stepX * i, y + stepY * i)
+                && isWalkable(x + stepX * i + crossX, y + stepY * i + crossY);
+            if (open && segmentStart < 0) {
+                segmentStart = i;
+            } else if (!open && segmentStart >= 0) {
+                int segmentEnd = i - 1;
+                if (segmentEnd - segmentStart + 1 < MAX_SINGLE_TRANSITION) {
+                    int middle = (segmentStart + segmentEnd) / 2;
+                    addTransition(x + stepX * middle, y + stepY * middle, crossX, crossY, tileNode, tiles, edges);
+                } else {
+                    addTransition(x + stepX * segmentStart, y + stepY * segmentStart, crossX, crossY, tileNode, tiles, edges);
+                    addTransition(x + stepX * segmentEnd, y + stepY * segmentEnd, crossX, crossY, tileNode, tiles, edges);
+                }
+                segmentStart = -1;
+            }
+        }
+    }
+
+    private void addTransition(int x, int y, int crossX, int crossY, int[] tileNode, List<Integer> tiles, List<int[]> edges) {
+        int a = nodeFor(y * columns + x, tileNode, tiles);
+        int b = nodeFor((y + crossY) * columns + x + crossX, tileNode, tiles);
+        edges.add(new int[] { a, b, 1 });
+        edges.add(new int[] { b, a, 1 });
+    }
+
+    private static int nodeFor(int tile, int[] tileNode, List<Integer> tiles) {
+        if (tileNode[tile] < 0) {
+            tileNode[tile] = tiles.size();
+            tiles.add(tile);
+        }
+        return tileNode[tile];
+    }
+
+    /**
+     * Caminho de start até goal (índices de tile = linha * colunas + coluna),
+     * incluindo os dois extremos, ou null se não houver caminho.
+     */
+    public int[] findPath(int start, int goal) {
+        if (!isWalkableTile(start) || !isWalkableTile(goal)) return null;
+        if (start == goal) return new int[] { start };
+
+        int startCluster = clusterOf(start);
+        int goalCluster = clusterOf(goal);
+        if (startCluster == goalCluster) {
+            int[] local = localPath(start, goal);
+            if (local != null) return local;
+        }
+
+        int[] abstractPath = abstractSearch(start, goal);
+        if (abstractPath == null) return null;
+
+        // Refina cada salto: dentro de um cluster busca local, entre clusters o passo é adjacente
+        int[] path = new int[64];
+        int length = 0;
+        path[length++] = start;
+        for (int i = 1; i < abstractPath.length; i++) {
+            int from = abstractPath[i - 1];
+            int to = abstractPath[i];
+            if (from == to) continue;
+            int[] segment;
+            if (clusterOf(from) == clusterOf(to)) {
+                segment = localPath(from, to);
+                if (segment == null) return null;   // não deveria acontecer: a aresta veio de uma BFS
+            } else {
+                segment = new int[] { from, to };
+            }
+            for (int j = 1; j < segment.length; j++) {
+                if (length == path.length) {
+                    path = Arrays.copyOf(path, length * 2);
+                }
+                path[length++] = segment[j];
+            }
+        }
+        return Arrays.copyOf(path, length);
+    }
+
+    // A* no grafo abstrato com início e destino como nós temporários (índices nodeCount e nodeCount + 1)
+    private int[] abstractSearch(int start, int goal) {
+        int startNode = nodeCount;
+        int goalNode = nodeCount + 1;
+        int[] startNodes = clusterNodes[clusterOf(start)];
+        int[] startDistances = localDistances(start);
+        int[] goalNodes = clusterNodes[clusterOf(goal)];
+        int[] goalDistances = localDistances(goal);
+        int goalX = goal % columns;
+        int goalY = goal / columns;
+
+        int[] cost = new int[nodeCount + 2];
+        int[] parent = new int[nodeCount + 2];
+        boolean[] closed = new boolean[nodeCount + 2];
+        Arrays.fill(cost, Integer.MAX_VALUE);
+        Arrays.fill(parent, -1);
+        LongHeap open = new LongHeap();
+        cost[startNode] = 0;
+        open.push(0, startNode);
+
+        while (!open.isEmpty()) {
+            int node = open.pop();
+            if (closed[node]) continue;
+            closed[node] = true;
+            if (node == goalNode) break;
+
+            if (node == startNode) {
+                for (int next : startNodes) {
+                    relax(node, next, startDistances[localIndex(nodeTiles[next])], cost, parent, open, goalX, goalY);
+                }
+                continue;
+            }
+            for (int e = edgeStart[node]; e < edgeStart[node + 1]; e++) {
+                relax(node, edgeTargets[e], edgeCosts[e], cost, parent, open, goalX, goalY);
+            }
+            if (clusterOf(nodeTiles[node]) == clusterOf(goal)) {
+                relax(node, goalNode, goalDistances[localIndex(nodeTiles[node])], cost, parent, open, goalX, goalY);
+            }
+        }
+        if (!closed[goalNode]) return null;
+
+        int length = 0;
+        for (int node = goalNode; node >= 0; node = parent[node]) {
+            length++;
+        }
+        int[] tiles = new int[length];
+        for (int node = goalNode, i = length - 1; node >= 0; node = parent[node], i--) {
+            tiles[i] = node == startNode ? start : node == goalNode ? goal : nodeTiles[node];
+        }
+        return tiles;
+    }
+
+    private void relax(int from, int to, int edgeCost, int[] cost, int[] parent, LongHeap open, int goalX, int goalY) {
+        if (edgeCost < 0) return;   // inalcançável dentro do cluster
+        int candidate = cost[from] + edgeCost;
+        if (candidate >= cost[to]) return;
+        cost[to] = candidate;
+        parent[to] = from;
+        int heuristic = 0;
+        if (to < nodeCount) {
+            int tile = nodeTiles[to];
+            heuristic = Math.abs(tile % columns - goalX) + Math.abs(tile / columns - goalY);
+        }
+        open.push(candidate + heuristic, to);
+    }
+
+    // BFS dentro do cluster de start; devolve a distância por índice local (-1 = inalcançável)
+    private int[] localDistances(int start) {
+        int[] distances = new int[CLUSTER_SIZE * CLUSTER_SIZE];
+        localSearch(start, -1, distances, null);
+        return distances;
+    }
+
+    // Caminho mais curto entre dois tiles do mesmo cluster, sem sair dele
+    private int[] localPath(int start, int goal) {
+        int[] distances = new int[CLUSTER_SIZE * CLUSTER_SIZE];
+        int[] parents = new int[CLUSTER_SIZE * CLUSTER_SIZE];
+        if (!localSearch(start, goal, distances, parents)) return null;
+
+        int length = distances[localIndex(goal)] + 1;
+        int[] path = new int[length];
+        int tile = goal;
+        for (int i = length - 1; i >= 0; i--) {
+            path[i] = tile;
+            tile = parents[localIndex(tile)];
+        }
+        return path;
+    }
+
+    private boolean localSearch(int start, int goal, int[] distances, int[] parents) {
+        int cluster = clusterOf(start);
+        int x0 = cluster % clusterColumns * CLUSTER_SIZE;
+        int y0 = cluster / clusterColumns * CLUSTER_SIZE;
+        int x1 = Math.min(columns, x0 + CLUSTER_SIZE);
+        int y1 = Math.min(rows, y0 + CLUSTER_SIZE);
+
+        Arrays.fill(distances, -1);
+        int[] queue = new int[CLUSTER_SIZE * CLUSTER_SIZE];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start;
+        distances[localIndex(start)] = 0;
+        while (head < tail) {
+            int tile = queue[head++];
+            if (tile == goal) return true;
+            int x = tile % columns;
+            int y = tile / columns;
+            for (int d = 0; d < 4; d++) {
+                int nx = x + DX[d];
+                int ny = y + DY[d];
+                if (nx < x0 || ny < y0 || nx >= x1 || ny >= y1 || !walkable[ny * columns + nx]) continue;
+                int next = ny * columns + nx;
+                int local = localIndex(next);
+                if (distances[local] >= 0) continue;
+                distances[local] = distances[localIndex(tile)] + 1;
+                if (parents != null) parents[local] = tile;
+                queue[tail++] = next;
+            }
+        }
+        return false;
+    }
+
+    private int clusterOf(int tile) {
+        return (tile / columns / CLUSTER_SIZE) * clusterColumns + (tile % columns) / CLUSTER_SIZE;
+    }
+
+    private int localIndex(int tile) {
+        return (tile / columns % CLUSTER_SIZE) * CLUSTER_SIZE + tile % columns % CLUSTER_SIZE;
+    }
+
+    public boolean isWalkable(int column, int row) {
+        return column >= 0 && row >= 0 && column < columns && row < rows && walkable[row * columns + column];
+    }
+
+    private boolean isWalkableTile(int tile) {
+        return tile >= 0 && tile < walkable.length && walkable[tile];
+    }
+
+    public int getColumns() { return columns; }
+    public int getRows() { return rows; }
+    public int getNodeCount() { return nodeCount; }
+
+    // Heap mínimo de (prioridade, nó) empacotados em long
+    private static class LongHeap {
+        private long[] items = new long[64];
+        private int size;
+
+        void push(int priority, int node) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            long item = ((long) priority << 32) | (node & 0xFFFFFFFFL);
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (items[parent] <= item) break;
+                items[i] = items[parent];
+                i = parent;
+            }
+            items[i] = item;
+        }
+
+        int pop() {
+            long top = items[0];
+            long last = items[--size];
+            int i = 0;
+            while (true) {
+                int child = i * 2 + 1;
+                if (child >= size) break;
+                if (child + 1 < size && items[child + 1] < items[child]) child++;
+                if (items[child] >= last) break;
+                items[i] = items[child];
+                i = child;
+            }
+            items[i] = last;
+            return (int) top;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+    }
+}
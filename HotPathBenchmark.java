@@ -0,0 +1,422 @@
+// HotPathBenchmark.java
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Microbenchmarks dos caminhos quentes do servidor e do cliente.
+ * Harness próprio (aquecimento, iterações cronometradas, média ± desvio) para
+ * rodar sem dependências: java -Djava.awt.headless=true HotPathBenchmark [filtro] [mapa.tmx]
+ * ou, pelo pom.xml, mvn -B exec:java -Dexec.args="[filtro] [mapa.tmx]".
+ * Cada linha mostra também os bytes alocados por operação na thread do benchmark.
+ *
+ *  - broadcast: serialização de um snapshot por cliente (InterestEncoder, o mesmo da Zone);
+ *  - collision: checkCollision contra os colisores do mapa (ou sintéticos, se o mapa faltar);
+ *  - decode:    FrameDecoder + RemoteWorld.decodeSnapshot (o estado do GameClient), e a interpolação por quadro;
+ *  - npc:       NPC.update sobre uma população grande;
+ *  - path:      HierarchicalPathfinder.findPath e FlowField em uma grade grande com obstáculos;
+ *  - render:    TiledMapRenderer.paintComponent em um BufferedImage fora da tela.
+ *
+ * Sementes fixas: os resultados são comparáveis entre execuções na mesma máquina.
+ */
+public class HotPathBenchmark {
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASUREMENT_ITERATIONS = 10;
+    private static final long ITERATION_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final long SEED = 42;
+
+    // Cenário: mesmo mapa e mesmos parâmetros do GameServer
+    private static final int MAP_COLUMNS = 40;
+    private static final int MAP_ROWS = 30;
+    private static final int TILE_SIZE = 32;
+    private static final int PLAYERS = 200;
+    private static final int NPCS = 2000;
+    private static final int SYNTHETIC_COLLIDERS = 400;
+    private static final int SNAPSHOT_VARIANTS = 4;   // alterna posições para gerar entradas e saídas
+
+    private interface Benchmark {
+        long run();   // devolve um valor para evitar eliminação de código morto
+    }
+
+    private static volatile long sink;
+
+    // Bytes alocados pela thread do benchmark (HotSpot); null em JVMs sem o contador
+    private static final com.sun.management.ThreadMXBean ALLOCATION_COUNTER =
+        ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean
+            ? (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean() : null;
+
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        String filter = args.length > 0 ? args[0] : "";
+        String mapPath = args.length > 1 ? args[1] : "resources/maps/mapa1.tmx";
+        boolean mapAvailable = new File(mapPath).isFile();
+        if (!mapAvailable) {
+            System.out.println("Mapa não encontrado (" + mapPath + "): usando colisores sintéticos, render desativado");
+        }
+
+        if ("broadcast".contains(filter)) broadcastBenchmark();
+        if ("collision".contains(filter)) collisionBenchmark(mapAvailable ? mapPath : null);
+        if ("decode".contains(filter)) decodeBenchmark();
+        if ("npc".contains(filter)) npcBenchmark();
+        if ("path".contains(filter)) pathBenchmark();
+        if ("render".contains(filter) && mapAvailable) renderBenchmark(mapPath);
+    }
+
+    // ---- Cenários ----
+
+    private static void broadcastBenchmark() {
+        WorldSnapshot[] snapshots = createSnapshots();
+        InterestEncoder encoder = new InterestEncoder(MAP_COLUMNS * TILE_SIZE, MAP_ROWS * TILE_SIZE);
+        ClientConnection[] clients = createClients(PLAYERS);
+        int[] variant = { 0 };
+        measure("broadcast (snapshot -> " + PLAYERS + " clientes)", PLAYERS, () ->
+            broadcast(encoder, clients, snapshots[variant[0]++ % SNAPSHOT_VARIANTS]));
+    }
+
+    private static void collisionBenchmark(String mapPath) {
+        CollisionMap collisionMap = mapPath != null ? CollisionMap.load(mapPath) : createSyntheticCollisionMap();
+        Random random = new Random(SEED);
+        int[] xs = new int[4096];
+        int[] ys = new int[4096];
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = random.nextInt(MAP_COLUMNS * TILE_SIZE - 50);
+            ys[i] = random.nextInt(MAP_ROWS * TILE_SIZE - 50);
+        }
+        measure("checkCollision (" + collisionMap.toRectangles().size() + " colisores)", xs.length, () -> {
+            long hits = 0;
+            for (int i = 0; i < xs.length; i++) {
+                // Mesma caixa do PlayerMovement
+                if (collisionMap.collides(xs[i] + PlayerMovement.FOOT_OFFSET_X, ys[i] + PlayerMovement.FOOT_OFFSET_Y,
+                        PlayerMovement.FOOT_WIDTH, PlayerMovement.FOOT_HEIGHT)) hits++;
+            }
+            return hits;
+        });
+    }
+
+    private static void decodeBenchmark() {
+        // Frames reais de um cliente, gerados pelo pipeline do servidor: o primeiro
+        // traz todas as entidades como novas, o segundo é o caso estável medido
+        WorldSnapshot snapshot = createSnapshots()[0];
+        InterestEncoder encoder = new InterestEncoder(MAP_COLUMNS * TILE_SIZE, MAP_ROWS * TILE_SIZE);
+        ClientConnection connection = new ClientConnection(null, 1);
+        byte[] initial = encodeFirstClient(encoder, connection, snapshot);
+        byte[] steady = encodeFirstClient(encoder, connection, snapshot);
+
+        // Mesmo estado replicado do GameClient, sem Swing; a confirmação de input não tem predição
+        RemoteWorld client = new RemoteWorld(100, new SpriteAtlas(), (sequence, x, y, movementState) -> {});
+        FrameDecoder decoder = new FrameDecoder();
+        try {
+            // O NPCManager registra cada NPC adicionado; silencia o log na preparação
+            PrintStream out = System.out;
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            try {
+                decoder.feed(initial, 0, initial.length);
+                handleServerMessage(client, decoder.next());
+                client.applyChanges();
+            } finally {
+                System.setOut(out);
+            }
+
+            measure("handleServerMessage (" + client.getPlayers().size() + " players, "
+                    + client.getNPCCount() + " NPCs visíveis)", 1, () -> {
+                decoder.feed(steady, 0, steady.length);
+                try {
+                    handleServerMessage(client, decoder.next());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return client.getPlayers().size();
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        // Custo por quadro do game loop: uma amostra interpolada por entidade visível
+        Random random = new Random(SEED);
+        InterpolationBuffer[] buffers = new InterpolationBuffer[PLAYERS + NPCS / 2];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = new InterpolationBuffer();
+            int x = random.nextInt(MAP_COLUMNS * TILE_SIZE);
+            int y = random.nextInt(MAP_ROWS * TILE_SIZE);
+            for (int tick = 0; tick < 16; tick++) {
+                buffers[i].add(tick * 16L, x + tick * 2, y, i & 3, 0, true);
+            }
+        }
+        long[] renderTime = { 0 };
+        measure("InterpolationBuffer.sample (" + buffers.length + " entidades)", buffers.length, () -> {
+            long time = 20 + renderTime[0]++ % 200;
+            long sum = 0;
+            for (InterpolationBuffer buffer : buffers) {
+                if (buffer.sample(time)) sum += buffer.getX();
+            }
+            return sum;
+        });
+    }
+
+    private static byte[] toBytes(ByteBuffer frame) {
+        byte[] bytes = new byte[frame.remaining()];
+        frame.get(bytes);
+        return bytes;
+    }
+
+    private static void npcBenchmark() {
+        Random random = new Random(SEED);
+        EntityStore store = new EntityStore();
+        List<NPC> npcs = new ArrayList<>();
+        for (int i = 0; i < NPCS * 5; i++) {
+            NPC.NPCBehavior behavior = i % 4 == 0 ? NPC.NPCBehavior.STATIONARY : NPC.NPCBehavior.WANDER;
+            npcs.add(new NPC(store, 1000 + i, random.nextInt(MAP_COLUMNS * TILE_SIZE), random.nextInt(MAP_ROWS * TILE_SIZE), "npc", behavior));
+        }
+        measure("NPC.update (" + npcs.size() + " NPCs)", npcs.size(), () -> {
+            long moving = 0;
+            for (NPC npc : npcs) {
+                npc.update();
+                if (npc.getState() == Entity.EntityState.MOVING) moving++;
+            }
+            return moving;
+        });
+        // Mesmo estágio do tick do servidor: regiões em paralelo no ForkJoinPool
+        NPCSimulation simulation = new NPCSimulation(store, MAP_COLUMNS * TILE_SIZE, MAP_ROWS * TILE_SIZE, ForkJoinPool.commonPool());
+        simulation.markPlayer(MAP_COLUMNS * TILE_SIZE / 2, MAP_ROWS * TILE_SIZE / 2);   // mapa inteiro acordado
+        measure("NPCSimulation.update (" + ForkJoinPool.commonPool().getParallelism() + " threads)", npcs.size(), () ->
+            simulation.update() ? 1 : 0);
+
+        // Mundo grande com um único player: o custo deve seguir a área povoada, não o total
+        EntityStore worldStore = new EntityStore();
+        int worldSize = 16384;
+        for (int i = 0; i < NPCS * 25; i++) {
+            new NPC(worldStore, 1000 + i, random.nextInt(worldSize), random.nextInt(worldSize), "npc", NPC.NPCBehavior.WANDER);
+        }
+        NPCSimulation world = new NPCSimulation(worldStore, worldSize, worldSize, ForkJoinPool.commonPool());
+        world.clearActivity();
+        world.markPlayer(1000, 1000);
+        world.update();
+        measure("NPCSimulation.update (" + worldStore.size() + " NPCs, " + (worldStore.size() - world.getDormantCount()) + " acordados)",
+            1, () -> world.update() ? 1 : 0);
+    }
+
+    private static void pathBenchmark() {
+        Random random = new Random(SEED);
+        int columns = 512;
+        int rows = 512;
+        boolean[] walkable = new boolean[columns * rows];
+        for (int i = 0; i < walkable.length; i++) {
+            walkable[i] = random.nextInt(100) >= 25;
+        }
+        HierarchicalPathfinder pathfinder = new HierarchicalPathfinder(walkable, columns, rows);
+        int[] starts = new int[256];
+        int[] goals = new int[256];
+        for (int i = 0; i < starts.length; i++) {
+            starts[i] = random.nextInt(walkable.length);
+            goals[i] = random.nextInt(walkable.length);
+        }
+        int[] next = { 0 };
+        measure("HierarchicalPathfinder.findPath (" + columns + "x" + rows + ")", 1, () -> {
+            int i = next[0]++ & (starts.length - 1);
+            int[] path = pathfinder.findPath(starts[i], goals[i]);
+            return path != null ? path.length : 0;
+        });
+
+        // Campo de fluxo: custo de construir um campo e de um passo (consulta) por NPC
+        measure("FlowField build (" + columns + "x" + rows + ")", 1, () -> {
+            int i = next[0]++ & (goals.length - 1);
+            return new FlowField(walkable, columns, rows, goals[i], 0).getDistance(starts[i]);
+        });
+        int goal = goals[0];
+        while (!walkable[goal]) goal++;
+        FlowField field = new FlowField(walkable, columns, rows, goal, 0);
+        int[] tiles = new int[4096];
+        for (int i = 0; i < tiles.length; i++) {
+            tiles[i] = random.nextInt(walkable.length);
+        }
+        measure("FlowField.nextTile", tiles.length, () -> {
+            long sum = 0;
+            for (int tile : tiles) {
+                sum += field.nextTile(tile);
+            }
+            return sum;
+        });
+    }
+
+    private static void renderBenchmark(String mapPath) {
+        TiledMapRenderer renderer = new TiledMapRenderer();
+        renderer.loadMap(mapPath);
+        renderer.setSize(800, 600);
+        Camera camera = new Camera(800, 600,
+            renderer.getMapWidth() * renderer.getTileWidth(),
+            renderer.getMapHeight() * renderer.getTileHeight());
+        renderer.setCamera(camera);
+
+        BufferedImage target = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        int maxX = Math.max(1, renderer.getMapWidth() * renderer.getTileWidth() - 800);
+        int maxY = Math.max(1, renderer.getMapHeight() * renderer.getTileHeight() - 600);
+        int[] frame = { 0 };
+        try {
+            measure("TiledMapRenderer.paintComponent (800x600)", 1, () -> {
+                // Panorâmica diagonal para não medir sempre a mesma região
+                Point position = camera.getPosition();
+                position.x = (frame[0] * 7) % maxX;
+                position.y = (frame[0] * 5) % maxY;
+                frame[0]++;
+                renderer.paintComponent(g);
+                return target.getRGB(400, 300);
+            });
+        } finally {
+            g.dispose();
+        }
+    }
+
+    // ---- Dados de entrada ----
+
+    private static WorldSnapshot[] createSnapshots() {
+        Random random = new Random(SEED);
+        int width = MAP_COLUMNS * TILE_SIZE;
+        int height = MAP_ROWS * TILE_SIZE;
+        int[] baseX = new int[PLAYERS + NPCS];
+        int[] baseY = new int[PLAYERS + NPCS];
+        for (int i = 0; i < baseX.length; i++) {
+            baseX[i] = random.nextInt(width - 50);
+            baseY[i] = random.nextInt(height - 50);
+        }
+
+        WorldSnapshot[] snapshots = new WorldSnapshot[SNAPSHOT_VARIANTS];
+        for (int v = 0; v < SNAPSHOT_VARIANTS; v++) {
+            WorldSnapshot snapshot = new WorldSnapshot();
+            // Cada variante desloca as entidades em um quadrado de 256px
+            int dx = (v & 1) * 256;
+            int dy = (v >> 1) * 256;
+            for (int i = 0; i < PLAYERS; i++) {
+                snapshot.addPlayer(i + 1, (baseX[i] + dx) % width, (baseY[i] + dy) % height,
+                    SnapshotCodec.directionName(i & 3), i % 4, (i & 1) == 0, v * 4 + i, 0L);
+            }
+            for (int i = PLAYERS; i < baseX.length; i++) {
+                snapshot.addNPC(1000 + i, (baseX[i] + dx) % width, (baseY[i] + dy) % height,
+                    SnapshotCodec.directionName(i & 3), 0, (i & 3) == 0, "npc_" + (i % 8));
+            }
+            snapshot.publish(v, v * 16L);
+            snapshots[v] = snapshot;
+        }
+        return snapshots;
+    }
+
+    private static CollisionMap createSyntheticCollisionMap() {
+        Random random = new Random(SEED);
+        List<Rectangle> colliders = new ArrayList<>();
+        for (int i = 0; i < SYNTHETIC_COLLIDERS; i++) {
+            int x = random.nextInt(MAP_COLUMNS) * TILE_SIZE;
+            int y = random.nextInt(MAP_ROWS) * TILE_SIZE;
+            if (i % 3 == 0) {
+                // Colisores desenhados à mão no Tiled raramente são alinhados à grade
+                colliders.add(new Rectangle(x + random.nextInt(16), y + random.nextInt(16), 8 + random.nextInt(40), 8 + random.nextInt(40)));
+            } else {
+                colliders.add(new Rectangle(x, y, TILE_SIZE * (1 + random.nextInt(3)), TILE_SIZE * (1 + random.nextInt(2))));
+            }
+        }
+        return new CollisionMap(colliders, MAP_COLUMNS, MAP_ROWS, TILE_SIZE, TILE_SIZE, CollisionMap.COLLIDER_BUFFER);
+    }
+
+    // Mesmo laço do Zone.broadcastGameState, sem transporte: todo envio dá certo
+    private static long broadcast(InterestEncoder encoder, ClientConnection[] clients, WorldSnapshot snapshot) {
+        encoder.index(snapshot);
+        long bytes = 0;
+        for (ClientConnection client : clients) {
+            int self = snapshot.indexOfPlayer(client.getPlayerId());
+            if (self < 0) continue;
+            bytes += encoder.encodeFor(client, snapshot, self).remaining();
+            client.commitKnownEntities();
+        }
+        return bytes;
+    }
+
+    // Despacho do GameClient.handleServerMessage para o único tipo que o benchmark envia
+    private static void handleServerMessage(RemoteWorld client, ByteBuffer message) {
+        if (message.get() == SnapshotCodec.MSG_SNAPSHOT) {
+            client.decodeSnapshot(message);
+        }
+    }
+
+    private static ClientConnection[] createClients(int count) {
+        ClientConnection[] clients = new ClientConnection[count];
+        for (int i = 0; i < count; i++) {
+            clients[i] = new ClientConnection(null, i + 1);
+        }
+        return clients;
+    }
+
+    // Frame do primeiro cliente, como no envio da Zone
+    private static byte[] encodeFirstClient(InterestEncoder encoder, ClientConnection client, WorldSnapshot snapshot) {
+        encoder.index(snapshot);
+        byte[] frame = toBytes(encoder.encodeFor(client, snapshot, snapshot.indexOfPlayer(client.getPlayerId())));
+        client.commitKnownEntities();
+        return frame;
+    }
+
+    // ---- Harness ----
+
+    private static void measure(String name, int operationsPerCall, Benchmark benchmark) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            runIteration(benchmark);
+        }
+
+        double[] results = new double[MEASUREMENT_ITERATIONS];
+        double sum = 0;
+        long operations = 0;
+        long allocated = 0;
+        for (int i = 0; i < MEASUREMENT_ITERATIONS; i++) {
+            long[] calls = runIteration(benchmark);
+            results[i] = (double) calls[1] / (calls[0] * (double) operationsPerCall);
+            sum += results[i];
+            operations += calls[0] * operationsPerCall;
+            allocated += calls[2];
+        }
+
+        double mean = sum / MEASUREMENT_ITERATIONS;
+        double variance = 0;
+        double min = Double.MAX_VALUE;
+        for (double result : results) {
+            variance += (result - mean) * (result - mean);
+            min = Math.min(min, result);
+        }
+        double deviation = Math.sqrt(variance / (MEASUREMENT_ITERATIONS - 1));
+        String allocation = ALLOCATION_COUNTER != null
+            ? String.format(", %.1f B/op", (double) allocated / operations) : "";
+        System.out.println(String.format("%-50s %12.1f ± %8.1f ns/op   (min %.1f, %d iterações%s)",
+            name, mean, deviation, min, MEASUREMENT_ITERATIONS, allocation));
+    }
+
+    // Devolve {chamadas, nanos decorridos, bytes alocados}
+    private static long[] runIteration(Benchmark benchmark) {
+        long accumulator = 0;
+        long calls = 0;
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        long deadline = start + ITERATION_NANOS;
+        long now;
+        do {
+            accumulator += benchmark.run();
+            calls++;
+            now = System.nanoTime();
+        } while (now < deadline);
+        long allocated = allocatedBytes() - allocatedBefore;
+        sink = accumulator;
+        return new long[] { calls, now - start, allocated };
+    }
+
+    private static long allocatedBytes() {
+        return ALLOCATION_COUNTER != null ? ALLOCATION_COUNTER.getCurrentThreadAllocatedBytes() : 0;
+    }
+}
@@ -0,0 +1,73 @@
+// InputRingBuffer.java
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fila circular de comandos de input com um único produtor e um único consumidor.
+ * A thread de I/O da conexão publica comandos com o número de sequência do
+ * cliente; a thread de tick consome no início do tick um número limitado de
+ * comandos (um passo de movimento por comando). A publicação usa lazySet nos
+ * índices, o que garante a ordem happens-before sem travas.
+ */
+public class InputRingBuffer {
+    public interface InputConsumer {
+        void onInput(byte command, int sequence);
+    }
+
+    private final byte[] commands;
+    private final int[] sequences;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();   // próximo a ler (consumidor)
+    private final AtomicLong tail = new AtomicLong();   // próximo a escrever (produtor)
+    private long cachedHead;                            // cópia local do produtor
+    private volatile long dropped;
+
+    public InputRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1) << 1);
+        this.commands = new byte[size];
+        this.sequences = new int[size];
+        this.mask = size - 1;
+    }
+
+    // Chamado apenas pela thread produtora; descarta o comando se a fila estiver cheia
+    public boolean offer(byte command, int sequence) {
+        long t = tail.get();
+        if (t - cachedHead > mask) {
+            cachedHead = head.get();
+            if (t - cachedHead > mask) {
+                dropped++;
+                return false;
+            }
+        }
+        int index = (int) t & mask;
+        commands[index] = command;
+        sequences[index] = sequence;
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    // Chamado apenas pela thread consumidora; entrega todos os comandos publicados
+    public int drain(InputConsumer consumer) {
+        return drain(consumer, Integer.MAX_VALUE);
+    }
+
+    // Entrega no máximo max comandos, na ordem de chegada; o restante fica para o próximo tick
+    public int drain(InputConsumer consumer, int max) {
+        long h = head.get();
+        long t = Math.min(tail.get(), h + max);
+        int count = (int) (t - h);
+        for (; h < t; h++) {
+            int index = (int) h & mask;
+            consumer.onInput(commands[index], sequences[index]);
+        }
+        head.lazySet(h);
+        return count;
+    }
+
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+}
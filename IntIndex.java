@@ -0,0 +1,86 @@
+// IntIndex.java
+
+/**
+ * Mapa int -> int (valores >= 0) em endereçamento aberto, sem boxing.
+ * Usado para resolver IDs de entidade, que vêm do JSON e da rede e podem ser
+ * esparsos: o tamanho acompanha o número de chaves, não o maior ID. Fica no
+ * máximo meio cheio; a remoção desloca as entradas seguintes em vez de deixar
+ * marcadores. Não é thread-safe.
+ */
+public class IntIndex {
+    private int[] keys;
+    private int[] values;   // valor + 1 (0 = posição vazia)
+    private int count;
+
+    public IntIndex(int expectedKeys) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedKeys) * 2 - 1) * 2;
+        keys = new int[capacity];
+        values = new int[capacity];
+    }
+
+    // Valor da chave, ou -1
+    public int get(int key) {
+        return values[position(key)] - 1;
+    }
+
+    public void put(int key, int value) {
+        if ((count + 1) * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        int position = position(key);
+        if (values[position] == 0) {
+            count++;
+        }
+        keys[position] = key;
+        values[position] = value + 1;
+    }
+
+    public void remove(int key) {
+        int mask = keys.length - 1;
+        int hole = position(key);
+        if (values[hole] == 0) return;
+        values[hole] = 0;
+        count--;
+        // As entradas seguintes do mesmo trecho voltam para perto da posição de origem
+        for (int next = (hole + 1) & mask; values[next] != 0; next = (next + 1) & mask) {
+            int home = mix(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                values[next] = 0;
+                hole = next;
+            }
+        }
+    }
+
+    public int size() { return count; }
+
+    // Posição da chave, ou a posição vazia onde ela entraria
+    private int position(int key) {
+        int mask = keys.length - 1;
+        int position = mix(key) & mask;
+        while (values[position] != 0 && keys[position] != key) {
+            position = (position + 1) & mask;
+        }
+        return position;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[capacity];
+        values = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != 0) {
+                int position = position(oldKeys[i]);
+                keys[position] = oldKeys[i];
+                values[position] = oldValues[i];
+            }
+        }
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
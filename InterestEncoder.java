@@ -0,0 +1,66 @@
+// InterestEncoder.java
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+
+/**
+ * Serialização do snapshot por cliente, usada pela thread de envio da Zone.
+ * index() põe todas as entidades na grade de interesse e codifica o registro de
+ * cada uma uma única vez; encodeFor() monta o frame de um cliente com o que está
+ * no seu raio de visão, as saídas e as entradas. Fica fora da Zone para que o
+ * HotPathBenchmark meça este mesmo código. Usado por uma única thread.
+ */
+public class InterestEncoder {
+    private static final int INTEREST_CELL_SIZE = 128;
+    private static final int VIEW_RADIUS = 512;   // cobre a tela de 800x600 com margem
+
+    private final SnapshotCodec snapshotCodec = new SnapshotCodec();
+    private final InterestGrid interestGrid;
+
+    public InterestEncoder(int mapWidth, int mapHeight) {
+        interestGrid = new InterestGrid(mapWidth, mapHeight, INTEREST_CELL_SIZE);
+    }
+
+    // Reindexa todas as entidades na grade e codifica o registro de cada uma (mesmo índice do snapshot)
+    public void index(WorldSnapshot snapshot) {
+        interestGrid.clear();
+        for (int i = 0; i < snapshot.size(); i++) {
+            interestGrid.insert(snapshot.getEntityKey(i), snapshot.getX(i), snapshot.getY(i));
+        }
+        snapshotCodec.recordAll(snapshot);
+    }
+
+    // Frame do cliente cujo player está no índice 'self'; se o envio der certo,
+    // o chamador confirma o conjunto com ClientConnection.commitKnownEntities
+    public ByteBuffer encodeFor(ClientConnection client, WorldSnapshot snapshot, int self) {
+        InterestGrid.Result visible = client.visibleEntities;
+        interestGrid.query(snapshot.getX(self), snapshot.getY(self), VIEW_RADIUS, visible);
+
+        // Recém-chegado de outra zona: tudo o que conhecia sai e tudo o que vê entra de novo
+        boolean resync = client.resync;
+        BitSet known = client.knownEntities;
+        BitSet current = client.currentEntities;
+        current.clear();
+        for (int i = 0; i < visible.size(); i++) {
+            current.set(interestGrid.getId(visible.get(i)));
+        }
+
+        // Entidades conhecidas que saíram da área de interesse (chaves: ID e tipo)
+        InterestGrid.Result leaving = client.leavingEntities;
+        leaving.clear();
+        for (int key = known.nextSetBit(0); key >= 0; key = known.nextSetBit(key + 1)) {
+            if (resync || !current.get(key)) {
+                leaving.add(key);
+            }
+        }
+
+        // O cliente reconcilia a predição com a posição e o estado do movimento após o último input aplicado
+        snapshotCodec.beginSnapshot(snapshot.getTick(), snapshot.getTimeMillis(),
+            snapshot.getInputSequence(self), snapshot.getX(self), snapshot.getY(self), snapshot.getMovementState(self),
+            leaving.array(), leaving.size(), visible.size());
+        for (int i = 0; i < visible.size(); i++) {
+            int index = visible.get(i);
+            snapshotCodec.addRecord(index, resync || !known.get(interestGrid.getId(index)));
+        }
+        return snapshotCodec.finishFrame();
+    }
+}
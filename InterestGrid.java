@@ -0,0 +1,110 @@
+// InterestGrid.java
+import java.util.Arrays;
+
+/**
+ * Grade uniforme de células sobre o mapa usada para gerenciamento de interesse.
+ * A cada tick as entidades são reinseridas; cada cliente consulta apenas as
+ * células dentro do seu raio de visão.
+ * As células são listas encadeadas em arrays, sem alocação por tick.
+ */
+public class InterestGrid {
+    private final int cellSize;
+    private final int columns;
+    private final int rows;
+    private final int[] cellHeads;
+    private int[] next;
+    private int[] ids;
+    private int[] xs;
+    private int[] ys;
+    private int count;
+
+    // Resultado reutilizável de uma consulta (índices de entidades na grade)
+    public static class Result {
+        private int[] values = new int[64];
+        private int size;
+
+        public void clear() { size = 0; }
+        public int size() { return size; }
+        public int get(int index) { return values[index]; }
+
+        public void add(int value) {
+            if (size == values.length) {
+                int[] grown = new int[values.length * 2];
+                System.arraycopy(values, 0, grown, 0, size);
+                values = grown;
+            }
+            values[size++] = value;
+        }
+
+        public int[] array() { return values; }
+    }
+
+    public InterestGrid(int mapWidth, int mapHeight, int cellSize) {
+        this.cellSize = cellSize;
+        this.columns = Math.max(1, (mapWidth + cellSize - 1) / cellSize);
+        this.rows = Math.max(1, (mapHeight + cellSize - 1) / cellSize);
+        this.cellHeads = new int[columns * rows];
+        this.next = new int[256];
+        this.ids = new int[256];
+        this.xs = new int[256];
+        this.ys = new int[256];
+        clear();
+    }
+
+    public void clear() {
+        Arrays.fill(cellHeads, -1);
+        count = 0;
+    }
+
+    public void insert(int id, int x, int y) {
+        if (count == ids.length) {
+            grow();
+        }
+        int cell = cellRow(y) * columns + cellColumn(x);
+        ids[count] = id;
+        xs[count] = x;
+        ys[count] = y;
+        next[count] = cellHeads[cell];
+        cellHeads[cell] = count;
+        count++;
+    }
+
+    // Coleta as entidades cuja posição está dentro do quadrado de raio 'radius'
+    public void query(int centerX, int centerY, int radius, Result result) {
+        result.clear();
+        int minColumn = cellColumn(centerX - radius);
+        int maxColumn = cellColumn(centerX + radius);
+        int minRow = cellRow(centerY - radius);
+        int maxRow = cellRow(centerY + radius);
+
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                for (int i = cellHeads[row * columns + column]; i != -1; i = next[i]) {
+                    if (Math.abs(xs[i] - centerX) <= radius && Math.abs(ys[i] - centerY) <= radius) {
+                        result.add(i);
+                    }
+                }
+            }
+        }
+    }
+
+    public int getId(int index) { return ids[index]; }
+    public int size() { return count; }
+
+    // Entidades fora do mapa ficam nas células da borda
+    private int cellColumn(int x) {
+        return Math.max(0, Math.min(columns - 1, Math.floorDiv(x, cellSize)));
+    }
+
+    private int cellRow(int y) {
+        return Math.max(0, Math.min(rows - 1, Math.floorDiv(y, cellSize)));
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        next = Arrays.copyOf(next, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        xs = Arrays.copyOf(xs, capacity);
+        ys = Arrays.copyOf(ys, capacity);
+    }
+}
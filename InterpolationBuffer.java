@@ -0,0 +1,130 @@
+// InterpolationBuffer.java
+
+/**
+ * Amostras recentes de uma entidade remota, com o horário do servidor de cada snapshot.
+ * O cliente desenha o mundo um pouco no passado (Clock.renderTime) e interpola
+ * entre as duas amostras que cercam esse instante, então atrasos e rajadas de
+ * pacotes não aparecem como trancos: enquanto o atraso de renderização cobrir o
+ * jitter da rede, sempre há uma amostra mais nova à frente.
+ * Se o instante passar da amostra mais nova, a entidade fica parada nela
+ * (sem extrapolação, que erraria em toda curva do movimento em tiles).
+ *
+ * A thread de rede adiciona amostras e o game loop lê; os métodos são sincronizados.
+ */
+public class InterpolationBuffer {
+    private static final int CAPACITY = 16;   // ~250 ms de snapshots a 60 Hz
+    private static final int MASK = CAPACITY - 1;
+
+    private final long[] times = new long[CAPACITY];
+    private final int[] xs = new int[CAPACITY];
+    private final int[] ys = new int[CAPACITY];
+    private final byte[] directions = new byte[CAPACITY];
+    private final byte[] spriteIndexes = new byte[CAPACITY];
+    private final boolean[] moving = new boolean[CAPACITY];
+    private int newest = -1;   // índice absoluto da amostra mais nova
+    private int count;
+
+    // Resultado do último sample()
+    private int x;
+    private int y;
+    private int direction;
+    private int spriteIndex;
+    private boolean sampledMoving;
+
+    // Amostras fora de ordem ou repetidas (mesmo tick reenviado) são ignoradas
+    public synchronized void add(long serverTime, int x, int y, int direction, int spriteIndex, boolean isMoving) {
+        if (count > 0 && serverTime <= times[newest & MASK]) return;
+        int index = ++newest & MASK;
+        times[index] = serverTime;
+        xs[index] = x;
+        ys[index] = y;
+        directions[index] = (byte) direction;
+        spriteIndexes[index] = (byte) spriteIndex;
+        moving[index] = isMoving;
+        if (count < CAPACITY) count++;
+    }
+
+    // Descarta as amostras (entidade saiu e voltou: a trajetória antiga não vale mais)
+    public synchronized void clear() {
+        newest = -1;
+        count = 0;
+    }
+
+    // Calcula o estado no instante renderTime (horário do servidor); false se ainda não há amostras
+    public synchronized boolean sample(long renderTime) {
+        if (count == 0) return false;
+
+        int index = newest;
+        int oldest = newest - count + 1;
+        while (index > oldest && times[index & MASK] > renderTime) {
+            index--;
+        }
+        int from = index & MASK;
+        if (index == newest || times[from] >= renderTime) {
+            // Depois da mais nova ou antes da mais antiga: fica na amostra
+            copy(from);
+            return true;
+        }
+
+        int to = (index + 1) & MASK;
+        double t = (double) (renderTime - times[from]) / (times[to] - times[from]);
+        x = (int) Math.round(xs[from] + (xs[to] - xs[from]) * t);
+        y = (int) Math.round(ys[from] + (ys[to] - ys[from]) * t);
+        // Direção e animação da amostra de destino: a entidade já está indo para lá
+        direction = directions[to];
+        spriteIndex = spriteIndexes[to];
+        sampledMoving = moving[to] || xs[from] != xs[to] || ys[from] != ys[to];
+        return true;
+    }
+
+    private void copy(int index) {
+        x = xs[index];
+        y = ys[index];
+        direction = directions[index];
+        spriteIndex = spriteIndexes[index];
+        sampledMoving = moving[index];
+    }
+
+    public synchronized int getX() { return x; }
+    public synchronized int getY() { return y; }
+    public synchronized String getDirection() { return SnapshotCodec.directionName(direction); }
+    public synchronized int getDirectionCode() { return direction; }
+    public synchronized int getSpriteIndex() { return spriteIndex; }
+    public synchronized boolean isMoving() { return sampledMoving; }
+
+    /**
+     * Estimativa do relógio do servidor no cliente.
+     * O offset (servidor - local) é suavizado a cada snapshot para que o jitter
+     * de chegada não faça o tempo de renderização ir e voltar; saltos grandes
+     * (reconexão, relógio ajustado) reposicionam o offset de uma vez.
+     */
+    public static class Clock {
+        private static final double SMOOTHING = 0.05;
+        private static final long RESYNC_THRESHOLD = 250;
+
+        private final long delay;
+        private double offset;
+        private boolean synced;
+
+        public Clock(long delayMillis) {
+            this.delay = delayMillis;
+        }
+
+        public synchronized void onSnapshot(long serverTime, long localTime) {
+            long measured = serverTime - localTime;
+            if (!synced || Math.abs(measured - offset) > RESYNC_THRESHOLD) {
+                offset = measured;
+                synced = true;
+            } else {
+                offset += (measured - offset) * SMOOTHING;
+            }
+        }
+
+        // Instante do servidor a desenhar agora: estimativa do horário atual menos o atraso
+        public synchronized long renderTime(long localTime) {
+            return localTime + (long) offset - delay;
+        }
+
+        public long getDelay() { return delay; }
+    }
+}
@@ -9,6 +9,12 @@ import java.util.HashMap;
 import java.io.IOException;
 
 public class JSONNPCLoader implements NPCLoader {
+    private final EntityStore store;
+
+    public JSONNPCLoader(EntityStore store) {
+        this.store = store;
+    }
+
     @Override
     public List<NPC> loadNPCsFromMap(String mapFile) {
         List<NPC> npcs = new ArrayList<>();
@@ -155,7 +161,11 @@ public class JSONNPCLoader implements NPCLoader {
             
             NPC.NPCBehavior behavior = NPC.NPCBehavior.valueOf(behaviorStr.toUpperCase());
             
-            return new NPC(id, x, y, type, behavior);
+            NPC npc = new NPC(store, id, x, y, type, behavior);
+            if (npcData.get("goalX") instanceof Number && npcData.get("goalY") instanceof Number) {
+                npc.setFlowGoal(((Number) npcData.get("goalX")).intValue(), ((Number) npcData.get("goalY")).intValue());
+            }
+            return npc;
         } catch (Exception e) {
             System.err.println("Erro ao criar NPC a partir do mapa: " + e.getMessage());
             return null;
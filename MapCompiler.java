@@ -0,0 +1,40 @@
+// MapCompiler.java
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Compilador offline de mapas: TMX -> formato binário do CompiledMap.
+ * Uso: java MapCompiler mapa.tmx [saida.map]
+ * Sem saída explícita grava ao lado do TMX (mapa1.tmx -> mapa1.map), onde
+ * CompiledMap.load procura. Deve ser rodado de novo sempre que o TMX mudar;
+ * até lá o jogo detecta o arquivo desatualizado e volta a ler o TMX.
+ */
+public class MapCompiler {
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Uso: java MapCompiler mapa.tmx [saida" + CompiledMap.EXTENSION + "]");
+            System.exit(2);
+        }
+        String tmxPath = args[0];
+        Path target = args.length > 1 ? Paths.get(args[1]) : CompiledMap.compiledPath(tmxPath);
+        File source = new File(tmxPath);
+
+        long start = System.nanoTime();
+        CompiledMap map = CompiledMap.fromTmx(tmxPath);
+        long parsed = System.nanoTime();
+        map.write(target, source);
+        long written = System.nanoTime();
+        CompiledMap check = CompiledMap.read(target, source);
+        long read = System.nanoTime();
+        if (check == null) {
+            throw new IllegalStateException("Mapa compilado não pôde ser relido: " + target);
+        }
+
+        System.out.println(String.format("%s -> %s: %dx%d tiles, %d camadas, %d tilesets, %d objetos, %d colisores residuais",
+            tmxPath, target, map.getWidth(), map.getHeight(), map.getLayers().length, map.getTilesets().size(),
+            map.getObjects().size(), map.getCollisionMap().getResidualCount()));
+        System.out.println(String.format("TMX %d bytes lido em %.1f ms; binário %d bytes gravado em %.1f ms, relido em %.1f ms",
+            source.length(), (parsed - start) / 1e6, target.toFile().length(), (written - parsed) / 1e6, (read - written) / 1e6));
+    }
+}
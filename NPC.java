@@ -1,28 +1,71 @@
 // NPC.java
-import java.awt.Point;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class NPC extends Entity {
+    private static final int PATROL_RADIUS = 12;        // tiles ao redor do ponto de origem
+    private static final int PATH_STEP_TICKS = 16;      // ticks por tile (mesma velocidade do player)
+    private static final int PATROL_PAUSE_TICKS = 60;   // espera entre uma rota e outra
+    private static final int PATH_RETRY_TICKS = 30;     // espera depois de um pedido sem caminho
+
     protected String npcType;
     protected boolean isMovable;
     protected NPCBehavior behavior;
+    private final int homeX;
+    private final int homeY;
+    private PathfindingService pathfinder;   // null no cliente: sem checagem de colisão nem rotas
+    private CompletableFuture<int[]> pendingPath;
+    private int[] path;
+    private int pathIndex;
+    private int stepCooldown;
+    private int pauseCooldown;
+    private boolean hasFlowGoal;
+    private int flowGoalX;
+    private int flowGoalY;
+    private CompletableFuture<FlowField> pendingField;
+    private FlowField flowField;
+    private int spriteBase = SpriteAtlas.NO_SPRITE;   // cliente: quadros do tipo no SpriteAtlas
     
     public enum NPCBehavior {
         STATIONARY,
         WANDER,
-        FOLLOW_PATH
+        FOLLOW_PATH,
+        FLOW_FIELD   // segue o campo de fluxo compartilhado até o destino (setFlowGoal)
     }
     
-    public NPC(int id, int x, int y, String npcType, NPCBehavior behavior) {
-        super(id, x, y);
+    public NPC(EntityStore store, int id, int x, int y, String npcType, NPCBehavior behavior) {
+        super(store, id, x, y);
         this.npcType = npcType;
         this.behavior = behavior;
         this.isMovable = behavior != NPCBehavior.STATIONARY;
+        this.homeX = x;
+        this.homeY = y;
+    }
+    
+    public void setPathfinder(PathfindingService pathfinder) {
+        this.pathfinder = pathfinder;
+    }
+    
+    // Destino do FLOW_FIELD em pixels; NPCs com o mesmo destino compartilham o campo
+    public void setFlowGoal(int x, int y) {
+        if (hasFlowGoal && x == flowGoalX && y == flowGoalY) return;
+        hasFlowGoal = true;
+        flowGoalX = x;
+        flowGoalY = y;
+        flowField = null;
+        pendingField = null;
     }
     
     @Override
     public void update() {
+        updateBehavior();
+        updateInterpolation();
+    }
+    
+    // Decide o próximo passo; o movimento em si é aplicado pelo EntityStore
+    public void updateBehavior() {
         switch (behavior) {
             case WANDER:
                 updateWanderBehavior();
@@ -30,30 +73,104 @@ public class NPC extends Entity {
             case FOLLOW_PATH:
                 updatePathBehavior();
                 break;
+            case FLOW_FIELD:
+                updateFlowFieldBehavior();
+                break;
             case STATIONARY:
                 break;
         }
-        
-        updateInterpolation();
     }
     
     private void updateWanderBehavior() {
-        if (state == EntityState.IDLE && Math.random() < 0.02) {
-            int dx = (int)(Math.random() * 3) - 1;
-            int dy = (int)(Math.random() * 3) - 1;
-            
-            Point newTarget = new Point(
-                position.x + dx * 32,
-                position.y + dy * 32
-            );
+        // ThreadLocalRandom: as regiões são atualizadas em paralelo
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (getState() == EntityState.IDLE && random.nextDouble() < 0.02) {
+            int dx = random.nextInt(3) - 1;
+            int dy = random.nextInt(3) - 1;
+            int newX = getX() + dx * 32;
+            int newY = getY() + dy * 32;
+            if (pathfinder != null && !pathfinder.canStandAt(newX, newY)) return;
             
-            setTargetPosition(newTarget);
+            setTargetPosition(newX, newY);
             setDirection(calculateDirection(dx, dy));
         }
     }
     
+    // Patrulha: pede rotas até pontos aleatórios perto da origem e anda um tile por vez
     private void updatePathBehavior() {
-        // Implementação futura de seguir caminho
+        if (pathfinder == null) return;
+        
+        if (pendingPath != null) {
+            if (!pendingPath.isDone()) return;
+            path = pendingPath.getNow(null);
+            pendingPath = null;
+            pathIndex = 0;
+            if (path == null) {
+                pauseCooldown = PATH_RETRY_TICKS;
+                return;
+            }
+        }
+        
+        if (path == null || pathIndex >= path.length) {
+            path = null;
+            if (pauseCooldown > 0) {
+                pauseCooldown--;
+                return;
+            }
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int goalX = homeX + (random.nextInt(PATROL_RADIUS * 2 + 1) - PATROL_RADIUS) * pathfinder.getTileWidth();
+            int goalY = homeY + (random.nextInt(PATROL_RADIUS * 2 + 1) - PATROL_RADIUS) * pathfinder.getTileHeight();
+            pendingPath = pathfinder.requestPath(getX(), getY(), goalX, goalY);
+            pauseCooldown = PATROL_PAUSE_TICKS;
+            return;
+        }
+        
+        if (getState() != EntityState.IDLE || --stepCooldown > 0) return;
+        stepCooldown = PATH_STEP_TICKS;
+        int tile = path[pathIndex++];
+        int x = pathfinder.tileX(tile);
+        int y = pathfinder.tileY(tile);
+        if (x == getX() && y == getY()) return;
+        setDirection(calculateDirection(Integer.signum(x - getX()), Integer.signum(y - getY())));
+        setTargetPosition(x, y);
+    }
+    
+    // Campo de fluxo: uma consulta por passo, sem busca por NPC
+    private void updateFlowFieldBehavior() {
+        if (pathfinder == null || !hasFlowGoal) return;
+        
+        if (pendingField != null) {
+            if (!pendingField.isDone()) return;
+            flowField = pendingField.getNow(null);
+            pendingField = null;
+            if (flowField == null) {
+                pauseCooldown = PATH_RETRY_TICKS;
+                return;
+            }
+        }
+        
+        if (flowField == null || !pathfinder.isCurrent(flowField)) {
+            flowField = null;
+            if (pauseCooldown > 0) {
+                pauseCooldown--;
+                return;
+            }
+            pendingField = pathfinder.requestFlowField(flowGoalX, flowGoalY);
+            return;
+        }
+        
+        if (getState() != EntityState.IDLE || --stepCooldown > 0) return;
+        stepCooldown = PATH_STEP_TICKS;
+        int tile = flowField.entryTile(pathfinder.tileAt(getX(), getY()));
+        // Fora do canto do tile, alinha primeiro (a grade do campo é por canto de tile)
+        if (tile >= 0 && pathfinder.tileX(tile) == getX() && pathfinder.tileY(tile) == getY()) {
+            tile = flowField.nextTile(tile);
+        }
+        if (tile < 0) return;   // chegou ou o destino é inalcançável daqui
+        int x = pathfinder.tileX(tile);
+        int y = pathfinder.tileY(tile);
+        setDirection(calculateDirection(Integer.signum(x - getX()), Integer.signum(y - getY())));
+        setTargetPosition(x, y);
     }
     
     private String calculateDirection(int dx, int dy) {
@@ -61,9 +178,11 @@ public class NPC extends Entity {
         if (dx == 0 && dy > 0) return "down";
         if (dx < 0 && dy == 0) return "left";
         if (dx > 0 && dy == 0) return "right";
-        return direction;
+        return getDirection();
     }
     
     public String getNPCType() { return npcType; }
+    public int getSpriteBase() { return spriteBase; }
+    public void setSpriteBase(int spriteBase) { this.spriteBase = spriteBase; }
     public NPCBehavior getBehavior() { return behavior; }
 }
\ No newline at end of file
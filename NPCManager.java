@@ -1,31 +1,24 @@
-import java.util.ArrayList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
 import java.util.List;
-import java.util.HashMap;
 import java.util.Map;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
+// Registro dos NPCs; a simulação é feita pelo NPCSimulation no tick do servidor
 public class NPCManager {
-    private Map<Integer, NPC> npcs;
+    private final EntityStore store;  // NPCs ficam em colunas; o mapa id -> NPC é do store
+    private final Map<Integer, NPC> npcView = new NPCMapView();
     private NPCLoader npcLoader;
+    private PathfindingService pathfinder;   // só no servidor
     private int nextNpcId;
-    private Timer updateTimer;
-    private static final int UPDATE_INTERVAL = 50; // 20 updates por segundo
     
     public NPCManager() {
-        this.npcs = new HashMap<>();
-        this.npcLoader = new JSONNPCLoader();
+        this.store = new EntityStore();
+        this.npcLoader = new JSONNPCLoader(store);
         System.out.println("NPCManager criado!");
         this.nextNpcId = 1000; // IDs começando em 1000 para NPCs
-        
-        // Inicializa o timer de atualização
-        this.updateTimer = new Timer();
-        this.updateTimer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                updateNPCs();
-            }
-        }, 0, UPDATE_INTERVAL);
     }
     
     public void loadNPCsFromMap(String mapFile) {
@@ -36,23 +29,29 @@ public class NPCManager {
         }
     }
     
+    // O NPC já ocupa um slot desde a construção; aqui apenas validamos o store
     public void addNPC(NPC npc) {
-        npcs.put(npc.getId(), npc);
+        if (npc.store != store) {
+            throw new IllegalArgumentException("NPC " + npc.getId() + " pertence a outro EntityStore");
+        }
+        npc.setPathfinder(pathfinder);
         System.out.println("NPC adicionado -> ID: " + npc.getId() + ", Tipo: " + npc.getNPCType());
     }
     
+    // Liga colisão e rotas a todos os NPCs, atuais e futuros
+    public void setPathfinder(PathfindingService pathfinder) {
+        this.pathfinder = pathfinder;
+        for (NPC npc : npcView.values()) {
+            npc.setPathfinder(pathfinder);
+        }
+    }
+    
     public NPC createNPC(int x, int y, String type, NPC.NPCBehavior behavior) {
-        NPC npc = new NPC(nextNpcId++, x, y, type, behavior);
+        NPC npc = new NPC(store, nextNpcId++, x, y, type, behavior);
         addNPC(npc);
         return npc;
     }
     
-    private void updateNPCs() {
-        for (NPC npc : npcs.values()) {
-            npc.update();
-        }
-    }
-
     public NPC loadNPC(String npcConfigFile) {
         NPC npc = npcLoader.loadNPC(npcConfigFile);
         if (npc != null) {
@@ -61,18 +60,80 @@ public class NPCManager {
         return npc;
     }
     
+    // Visão somente leitura sobre o store (sem cópia); reflete o estado no momento da leitura
     public Map<Integer, NPC> getNPCs() {
-        return new HashMap<>(npcs);
+        return npcView;
+    }
+    
+    public NPC getNPC(int id) {
+        int slot = store.slotOf(id);
+        return slot >= 0 ? (NPC) store.getEntity(slot) : null;
+    }
+    
+    public EntityStore getStore() {
+        return store;
     }
     
     public void removeNPC(int id) {
-        npcs.remove(id);
+        int slot = store.slotOf(id);
+        if (slot >= 0) {
+            store.release(slot);
+        }
     }
     
-    public void stop() {
-        if (updateTimer != null) {
-            updateTimer.cancel();
-            updateTimer = null;
+    private class NPCMapView extends AbstractMap<Integer, NPC> {
+        private final Set<Map.Entry<Integer, NPC>> entries = new AbstractSet<Map.Entry<Integer, NPC>>() {
+            @Override
+            public Iterator<Map.Entry<Integer, NPC>> iterator() {
+                return new Iterator<Map.Entry<Integer, NPC>>() {
+                    private int slot;
+                    private NPC pending;   // entidade capturada em hasNext(), imune a liberações concorrentes
+
+                    @Override
+                    public boolean hasNext() {
+                        while (pending == null && slot < store.getSlotLimit()) {
+                            Entity entity = store.getEntity(slot++);
+                            if (entity instanceof NPC) {
+                                pending = (NPC) entity;
+                            }
+                        }
+                        return pending != null;
+                    }
+
+                    @Override
+                    public Map.Entry<Integer, NPC> next() {
+                        if (!hasNext()) throw new NoSuchElementException();
+                        NPC npc = pending;
+                        pending = null;
+                        return new AbstractMap.SimpleImmutableEntry<>(npc.getId(), npc);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return store.size();
+            }
+        };
+
+        @Override
+        public Set<Map.Entry<Integer, NPC>> entrySet() {
+            return entries;
+        }
+
+        @Override
+        public int size() {
+            return store.size();
+        }
+
+        @Override
+        public NPC get(Object key) {
+            return key instanceof Integer ? getNPC((Integer) key) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,252 @@
+// NPCSimulation.java
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Estágio único de simulação de NPCs, chamado pelo tick do servidor.
+ * Os NPCs ficam em listas encadeadas por região do mapa (arrays head/next/prev,
+ * como no InterestGrid). Só as regiões acordadas são percorridas, em paralelo
+ * em um ForkJoinPool; cada NPC só escreve no próprio slot, então as tarefas não
+ * precisam de travas. Populações pequenas rodam na própria thread do tick.
+ *
+ * Nível de atividade por região, calculado a partir das posições dos players:
+ *  - ACTIVE: dentro de ACTIVE_RADIUS de algum player, simulado todo tick;
+ *  - REDUCED: na borda (até ACTIVATION_RADIUS), simulado a cada REDUCED_INTERVAL ticks;
+ *  - DORMANT: longe de todos, não é simulado nem replicado.
+ * Um NPC acorda no mesmo tick em que um player entra no raio de ativação da sua região.
+ * NPCs dormentes não se movem, então o custo por tick depende da área povoada.
+ */
+public class NPCSimulation {
+    public static final byte ACTIVE = 0;
+    public static final byte REDUCED = 1;
+    public static final byte DORMANT = 2;
+
+    private static final int REGION_SIZE = 256;          // pixels por lado de cada região
+    private static final int ACTIVE_RADIUS = 768;        // raio de visão (512) mais uma região de margem
+    private static final int ACTIVATION_RADIUS = 1280;   // além disso o NPC dorme
+    private static final int REDUCED_INTERVAL = 4;       // ticks entre atualizações na borda
+    private static final int PARALLEL_THRESHOLD = 1024;  // abaixo disso o fork não compensa
+    private static final int MIN_BATCH = 256;            // NPCs mínimos por tarefa
+
+    private final EntityStore store;
+    private final ForkJoinPool pool;
+    private final int regionColumns;
+    private final int regionRows;
+    private final byte[] regionActivity;
+    private final int[] regionHead;     // primeiro slot de cada região, ou -1
+    private final int[] regionCount;
+    private int[] next = new int[256];
+    private int[] prev = new int[256];
+    private int[] slotRegion = new int[256];   // -1 se o slot não é um NPC
+    private int builtVersion = -1;
+
+    // Regiões acordadas neste tick e offsets acumulados de NPCs (para dividir as tarefas)
+    private final int[] awakeRegions;
+    private final int[] awakeOffsets;
+    private int awakeRegionCount;
+    // Slots dos NPCs acordados após o update, na ordem das regiões
+    private int[] awakeSlots = new int[256];
+    private int awakeCount;
+    // NPCs que trocaram de região durante o update (raros: só ao cruzar a borda de uma região)
+    private int[] movedSlots = new int[256];
+    private final AtomicInteger movedCount = new AtomicInteger();
+    private int npcCount;
+    private long tick;
+
+    public NPCSimulation(EntityStore store, int mapWidth, int mapHeight, ForkJoinPool pool) {
+        this.store = store;
+        this.pool = pool;
+        this.regionColumns = Math.max(1, (mapWidth + REGION_SIZE - 1) / REGION_SIZE);
+        this.regionRows = Math.max(1, (mapHeight + REGION_SIZE - 1) / REGION_SIZE);
+        int regions = regionColumns * regionRows;
+        this.regionActivity = new byte[regions];
+        this.regionHead = new int[regions];
+        this.regionCount = new int[regions];
+        this.awakeRegions = new int[regions];
+        this.awakeOffsets = new int[regions + 1];
+        Arrays.fill(regionActivity, DORMANT);
+    }
+
+    // Início do tick: todas as regiões dormem até algum player marcá-las
+    public void clearActivity() {
+        Arrays.fill(regionActivity, DORMANT);
+    }
+
+    // Acorda as regiões ao redor do player (distância de Chebyshev até o retângulo da região)
+    public void markPlayer(int x, int y) {
+        int firstColumn = clampColumn(Math.floorDiv(x - ACTIVATION_RADIUS, REGION_SIZE));
+        int lastColumn = clampColumn(Math.floorDiv(x + ACTIVATION_RADIUS, REGION_SIZE));
+        int firstRow = clampRow(Math.floorDiv(y - ACTIVATION_RADIUS, REGION_SIZE));
+        int lastRow = clampRow(Math.floorDiv(y + ACTIVATION_RADIUS, REGION_SIZE));
+        for (int row = firstRow; row <= lastRow; row++) {
+            int dy = axisDistance(y, row * REGION_SIZE);
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                int distance = Math.max(dy, axisDistance(x, column * REGION_SIZE));
+                byte level = distance <= ACTIVE_RADIUS ? ACTIVE : distance <= ACTIVATION_RADIUS ? REDUCED : DORMANT;
+                int region = row * regionColumns + column;
+                if (level < regionActivity[region]) {
+                    regionActivity[region] = level;
+                }
+            }
+        }
+    }
+
+    // Atualiza os NPCs acordados; devolve true se algum deles continua em movimento
+    public boolean update() {
+        tick++;
+        if (builtVersion != store.getVersion()) {
+            rebuild();
+        }
+
+        awakeRegionCount = 0;
+        for (int region = 0; region < regionActivity.length; region++) {
+            if (regionActivity[region] != DORMANT && regionCount[region] > 0) {
+                awakeOffsets[awakeRegionCount + 1] = awakeOffsets[awakeRegionCount] + regionCount[region];
+                awakeRegions[awakeRegionCount++] = region;
+            }
+        }
+
+        int moving;
+        if (awakeOffsets[awakeRegionCount] < PARALLEL_THRESHOLD || pool.getParallelism() <= 1) {
+            moving = updateRegions(0, awakeRegionCount);
+        } else {
+            moving = pool.invoke(new RegionTask(0, awakeRegionCount));
+        }
+
+        relinkMoved();
+        collectAwake();
+        return moving > 0;
+    }
+
+    private int updateRegions(int from, int to) {
+        int moving = 0;
+        for (int i = from; i < to; i++) {
+            int region = awakeRegions[i];
+            boolean reduced = regionActivity[region] == REDUCED;
+            for (int slot = regionHead[region]; slot >= 0; slot = next[slot]) {
+                // Na borda, cada slot atualiza em um tick diferente do ciclo para espalhar a carga
+                if (reduced && (tick + slot) % REDUCED_INTERVAL != 0) continue;
+                ((NPC) store.getEntity(slot)).updateBehavior();
+                store.interpolate(slot);
+                if (store.isMoving(slot)) moving++;
+                if (regionOf(slot) != region) {
+                    movedSlots[movedCount.getAndIncrement()] = slot;
+                }
+            }
+        }
+        return moving;
+    }
+
+    // Só NPCs acordados se movem; as listas são ajustadas depois, na thread do tick
+    private void relinkMoved() {
+        int moved = movedCount.getAndSet(0);
+        for (int i = 0; i < moved; i++) {
+            int slot = movedSlots[i];
+            unlink(slot);
+            link(slot, regionOf(slot));
+        }
+    }
+
+    private void collectAwake() {
+        awakeCount = 0;
+        for (int region = 0; region < regionActivity.length; region++) {
+            if (regionActivity[region] == DORMANT) continue;
+            for (int slot = regionHead[region]; slot >= 0; slot = next[slot]) {
+                awakeSlots[awakeCount++] = slot;
+            }
+        }
+    }
+
+    // Reconstrói as listas quando NPCs são criados ou removidos
+    private void rebuild() {
+        int limit = store.getSlotLimit();
+        if (next.length < limit) {
+            int capacity = Math.max(limit, next.length * 2);
+            next = new int[capacity];
+            prev = new int[capacity];
+            slotRegion = new int[capacity];
+            awakeSlots = new int[capacity];
+            movedSlots = new int[capacity];   // cada NPC entra no máximo uma vez por tick
+        }
+        Arrays.fill(regionHead, -1);
+        Arrays.fill(regionCount, 0);
+        Arrays.fill(slotRegion, -1);
+        npcCount = 0;
+        for (int slot = limit - 1; slot >= 0; slot--) {
+            if (store.getEntity(slot) instanceof NPC) {
+                link(slot, regionOf(slot));
+                npcCount++;
+            }
+        }
+        builtVersion = store.getVersion();
+    }
+
+    private void link(int slot, int region) {
+        int head = regionHead[region];
+        next[slot] = head;
+        prev[slot] = -1;
+        if (head >= 0) prev[head] = slot;
+        regionHead[region] = slot;
+        regionCount[region]++;
+        slotRegion[slot] = region;
+    }
+
+    private void unlink(int slot) {
+        int region = slotRegion[slot];
+        if (prev[slot] >= 0) {
+            next[prev[slot]] = next[slot];
+        } else {
+            regionHead[region] = next[slot];
+        }
+        if (next[slot] >= 0) prev[next[slot]] = prev[slot];
+        regionCount[region]--;
+        slotRegion[slot] = -1;
+    }
+
+    // Slots dos NPCs acordados no último update; apenas estes entram no snapshot
+    public int[] getAwakeSlots() { return awakeSlots; }
+    public int getAwakeCount() { return awakeCount; }
+    public int getDormantCount() { return npcCount - awakeCount; }
+
+    private int regionOf(int slot) {
+        int column = clampColumn(store.getX(slot) / REGION_SIZE);
+        int row = clampRow(store.getY(slot) / REGION_SIZE);
+        return row * regionColumns + column;
+    }
+
+    private int clampColumn(int column) { return Math.min(regionColumns - 1, Math.max(0, column)); }
+    private int clampRow(int row) { return Math.min(regionRows - 1, Math.max(0, row)); }
+
+    // Distância de um ponto ao intervalo [start, start + REGION_SIZE) em um eixo
+    private static int axisDistance(int value, int start) {
+        if (value < start) return start - value;
+        if (value >= start + REGION_SIZE) return value - (start + REGION_SIZE - 1);
+        return 0;
+    }
+
+    // Intervalo [from, to) de regiões acordadas; divide enquanto houver NPCs suficientes
+    private class RegionTask extends RecursiveTask<Integer> {
+        private final int from;
+        private final int to;
+
+        RegionTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Integer compute() {
+            int count = awakeOffsets[to] - awakeOffsets[from];
+            if (to - from > 1 && count > MIN_BATCH * 2) {
+                int middle = (from + to) >>> 1;
+                RegionTask left = new RegionTask(from, middle);
+                left.fork();
+                int right = new RegionTask(middle, to).compute();
+                return left.join() + right;
+            }
+            return updateRegions(from, to);
+        }
+    }
+}
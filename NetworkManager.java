@@ -1,6 +1,7 @@
 // NetworkManager.java
 import java.io.*;
 import java.net.*;
+import java.nio.ByteBuffer;
 import java.util.function.Consumer;
 
 public class NetworkManager {
@@ -9,19 +10,39 @@ public class NetworkManager {
     
     private Socket socket;
     private PrintWriter out;
-    private BufferedReader in;
+    private InputStream in;
     private Thread listenerThread;
+    private final FrameDecoder decoder = new FrameDecoder();
+    private final byte[] readBuffer = new byte[8192];
+    private int playerId;
     
-    public void connect(Consumer<String> onMessageReceived) throws IOException {
+    public void connect(Consumer<ByteBuffer> onMessageReceived) throws IOException {
         socket = new Socket(SERVER_ADDRESS, SERVER_PORT);
+        socket.setTcpNoDelay(true);
         out = new PrintWriter(socket.getOutputStream(), true);
-        in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+        in = socket.getInputStream();
+        
+        // O primeiro frame é sempre o ID do jogador; lido antes de iniciar o listener
+        ByteBuffer welcome = readFrame();
+        if (welcome.get() != SnapshotCodec.MSG_WELCOME) {
+            throw new IOException("Mensagem inicial inesperada do servidor");
+        }
+        playerId = SnapshotCodec.decodeWelcome(welcome);
         
         listenerThread = new Thread(() -> {
             try {
-                String message;
-                while ((message = in.readLine()) != null) {
-                    onMessageReceived.accept(message);
+                while (true) {
+                    ByteBuffer frame;
+                    while ((frame = decoder.next()) != null) {
+                        try {
+                            onMessageReceived.accept(frame);
+                        } catch (RuntimeException e) {
+                            // Frame inválido ou erro ao aplicá-lo: descarta só este e segue recebendo
+                            System.err.println("Erro ao processar mensagem do servidor: " + e.getMessage());
+                            e.printStackTrace();
+                        }
+                    }
+                    readChunk();
                 }
             } catch (IOException e) {
                 System.out.println("Desconectado do servidor.");
@@ -30,14 +51,29 @@ public class NetworkManager {
         listenerThread.start();
     }
     
+    // Bloqueia até que um frame completo esteja disponível
+    private ByteBuffer readFrame() throws IOException {
+        ByteBuffer frame;
+        while ((frame = decoder.next()) == null) {
+            readChunk();
+        }
+        return frame;
+    }
+    
+    private void readChunk() throws IOException {
+        int count = in.read(readBuffer);
+        if (count < 0) throw new EOFException();
+        decoder.feed(readBuffer, 0, count);
+    }
+    
     public void sendMessage(String message) {
         if (out != null) {
             out.println(message);
         }
     }
     
-    public String readInitialMessage() throws IOException {
-        return in != null ? in.readLine() : null;
+    public int getPlayerId() {
+        return playerId;
     }
     
     public void disconnect() {
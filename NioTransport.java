@@ -0,0 +1,307 @@
+// NioTransport.java
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Transporte TCP não bloqueante baseado em Selector.
+ * Uma thread aceita conexões e distribui os canais entre um pequeno
+ * conjunto fixo de threads de I/O, cada uma com o seu próprio Selector.
+ * As mensagens recebidas são separadas por linha, como no BufferedReader.readLine().
+ * Cada conexão tem uma fila de saída limitada em bytes; quem envia nunca bloqueia
+ * e pode consultar a profundidade da fila e os bytes pendentes.
+ */
+public class NioTransport {
+    public interface Handler {
+        void onAccept(Connection connection);
+        void onLine(Connection connection, String line);
+        void onClose(Connection connection);
+    }
+
+    private static final int READ_BUFFER_SIZE = 4096;
+    private static final int MAX_LINE_LENGTH = 1024;
+
+    private final Handler handler;
+    private final IoWorker[] workers;
+    private final AtomicInteger nextWorker = new AtomicInteger();
+    private final long maxPendingBytes;
+    private final AtomicLong totalPendingBytes = new AtomicLong();
+    private final AtomicLong droppedMessages = new AtomicLong();
+
+    public NioTransport(Handler handler, int ioThreads, long maxPendingBytes) {
+        this.handler = handler;
+        this.maxPendingBytes = maxPendingBytes;
+        this.workers = new IoWorker[ioThreads];
+        for (int i = 0; i < ioThreads; i++) {
+            workers[i] = new IoWorker("nio-io-" + i);
+        }
+    }
+
+    // Bloqueia a thread chamadora no loop de accept
+    public void start(int port) throws IOException {
+        for (IoWorker worker : workers) {
+            worker.start();
+        }
+
+        try (ServerSocketChannel serverChannel = ServerSocketChannel.open();
+             Selector acceptSelector = Selector.open()) {
+            serverChannel.bind(new InetSocketAddress(port));
+            serverChannel.configureBlocking(false);
+            serverChannel.register(acceptSelector, SelectionKey.OP_ACCEPT);
+
+            while (true) {
+                acceptSelector.select();
+                Iterator<SelectionKey> keys = acceptSelector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (key.isAcceptable()) {
+                        accept(serverChannel);
+                    }
+                }
+            }
+        }
+    }
+
+    private void accept(ServerSocketChannel serverChannel) throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+
+            IoWorker worker = workers[Math.floorMod(nextWorker.getAndIncrement(), workers.length)];
+            Connection connection = new Connection(channel, worker);
+            handler.onAccept(connection);
+            worker.register(connection);
+        }
+    }
+
+    public class Connection {
+        private final SocketChannel channel;
+        private final IoWorker worker;
+        private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        private final Queue<ByteBuffer> outbound = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+        private final AtomicBoolean writeScheduled = new AtomicBoolean(false);
+        private final AtomicLong pendingBytes = new AtomicLong();
+        private final AtomicInteger queueDepth = new AtomicInteger();
+        private byte[] lineBuffer = new byte[128];
+        private int lineLength = 0;
+        private boolean skipLineFeed = false;
+        private SelectionKey key;
+        private volatile Object attachment;
+
+        private Connection(SocketChannel channel, IoWorker worker) {
+            this.channel = channel;
+            this.worker = worker;
+        }
+
+        public Object getAttachment() { return attachment; }
+        public void setAttachment(Object attachment) { this.attachment = attachment; }
+        public boolean isClosed() { return closed.get(); }
+        public long getPendingBytes() { return pendingBytes.get(); }
+        public int getQueueDepth() { return queueDepth.get(); }
+
+        // Enfileira o buffer para envio; nunca bloqueia a thread chamadora.
+        // Retorna false se a conexão estiver fechada ou a fila estiver cheia.
+        public boolean send(ByteBuffer data) {
+            if (closed.get()) return false;
+            int size = data.remaining();
+            if (pendingBytes.get() + size > maxPendingBytes) {
+                droppedMessages.incrementAndGet();
+                return false;
+            }
+            pendingBytes.addAndGet(size);
+            totalPendingBytes.addAndGet(size);
+            queueDepth.incrementAndGet();
+            outbound.add(data);
+
+            // Só acorda o Selector se a conexão ainda não estiver agendada
+            if (writeScheduled.compareAndSet(false, true)) {
+                worker.requestWrite(this);
+            }
+            return true;
+        }
+
+        public void sendLine(String message) {
+            send(ByteBuffer.wrap((message + "\n").getBytes(StandardCharsets.UTF_8)));
+        }
+
+        public void close() {
+            if (!closed.compareAndSet(false, true)) return;
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.out.println("Erro ao fechar conexão: " + e.getMessage());
+            }
+            outbound.clear();
+            totalPendingBytes.addAndGet(-pendingBytes.getAndSet(0));
+            queueDepth.set(0);
+            handler.onClose(this);
+        }
+
+        private void read() throws IOException {
+            int count = channel.read(readBuffer);
+            if (count < 0) {
+                // Última linha sem terminador: entregue antes de fechar
+                if (lineLength > 0) {
+                    String line = new String(lineBuffer, 0, lineLength, StandardCharsets.UTF_8);
+                    lineLength = 0;
+                    handler.onLine(this, line);
+                }
+                close();
+                return;
+            }
+
+            readBuffer.flip();
+            while (readBuffer.hasRemaining()) {
+                byte b = readBuffer.get();
+                if (b == '\n' && skipLineFeed) {
+                    skipLineFeed = false;
+                    continue;
+                }
+                skipLineFeed = false;
+
+                if (b == '\n' || b == '\r') {
+                    skipLineFeed = b == '\r';
+                    String line = new String(lineBuffer, 0, lineLength, StandardCharsets.UTF_8);
+                    lineLength = 0;
+                    handler.onLine(this, line);
+                    if (closed.get()) return;
+                    continue;
+                }
+
+                if (lineLength == MAX_LINE_LENGTH) {
+                    System.out.println("Linha excede o tamanho máximo, desconectando cliente");
+                    close();
+                    return;
+                }
+                if (lineLength == lineBuffer.length) {
+                    byte[] grown = new byte[Math.min(MAX_LINE_LENGTH, lineBuffer.length * 2)];
+                    System.arraycopy(lineBuffer, 0, grown, 0, lineLength);
+                    lineBuffer = grown;
+                }
+                lineBuffer[lineLength++] = b;
+            }
+            readBuffer.clear();
+        }
+
+        private void flush() throws IOException {
+            ByteBuffer data;
+            while ((data = outbound.peek()) != null) {
+                int written = channel.write(data);
+                pendingBytes.addAndGet(-written);
+                totalPendingBytes.addAndGet(-written);
+                if (data.hasRemaining()) {
+                    // Socket cheio: espera OP_WRITE
+                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+                outbound.poll();
+                queueDepth.decrementAndGet();
+            }
+            key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    public long getTotalPendingBytes() { return totalPendingBytes.get(); }
+    public long getDroppedMessages() { return droppedMessages.get(); }
+
+    private class IoWorker extends Thread {
+        private final Queue<Connection> pendingRegistrations = new ConcurrentLinkedQueue<>();
+        private final Queue<Connection> pendingWrites = new ConcurrentLinkedQueue<>();
+        private Selector selector;
+
+        IoWorker(String name) {
+            super(name);
+            setDaemon(true);
+            try {
+                selector = Selector.open();
+            } catch (IOException e) {
+                throw new IllegalStateException("Não foi possível abrir o Selector", e);
+            }
+        }
+
+        void register(Connection connection) {
+            pendingRegistrations.add(connection);
+            selector.wakeup();
+        }
+
+        void requestWrite(Connection connection) {
+            pendingWrites.add(connection);
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                try {
+                    selector.select();
+                    processRegistrations();
+                    processWrites();
+
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        Connection connection = (Connection) key.attachment();
+                        try {
+                            if (key.isValid() && key.isReadable()) {
+                                connection.read();
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                connection.flush();
+                            }
+                        } catch (IOException | CancelledKeyException e) {
+                            System.out.println("Cliente desconectado: " + e.getMessage());
+                            connection.close();
+                        }
+                    }
+                } catch (IOException e) {
+                    System.out.println("Erro no loop de I/O: " + e.getMessage());
+                }
+            }
+        }
+
+        private void processRegistrations() {
+            Connection connection;
+            while ((connection = pendingRegistrations.poll()) != null) {
+                if (connection.isClosed()) continue;
+                try {
+                    connection.key = connection.channel.register(selector, SelectionKey.OP_READ, connection);
+                    // Mensagens enviadas antes do registro
+                    connection.flush();
+                } catch (IOException e) {
+                    connection.close();
+                }
+            }
+        }
+
+        private void processWrites() {
+            Connection connection;
+            while ((connection = pendingWrites.poll()) != null) {
+                connection.writeScheduled.set(false);
+                if (connection.key == null || connection.isClosed()) continue;
+                try {
+                    connection.flush();
+                } catch (IOException | CancelledKeyException e) {
+                    System.out.println("Erro ao enviar mensagem: " + e.getMessage());
+                    connection.close();
+                }
+            }
+        }
+    }
+}
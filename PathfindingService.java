@@ -0,0 +1,231 @@
+// PathfindingService.java
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Serviço assíncrono de caminhos para NPCs.
+ * A grade caminhável é compilada do CollisionMap com a mesma caixa de colisão
+ * dos players (PlayerMovement.FOOT_*, testada com CollisionMap.collides) e as
+ * buscas rodam em um pool limitado de workers com fila limitada: se a fila
+ * encher, o pedido é recusado (null) e o NPC tenta de novo mais tarde, sem
+ * travar o tick.
+ * Caminhos prontos ficam em um cache LRU por (tile de origem, tile de destino),
+ * e pedidos iguais em andamento compartilham o mesmo future.
+ *
+ * Para multidões indo ao mesmo lugar há também campos de fluxo (FlowField):
+ * um campo por tile de destino, calculado uma vez no mesmo pool e guardado em
+ * outro cache LRU, do qual cada NPC só lê a direção do tile onde está.
+ * invalidateFlowFields() descarta todos os campos (ex.: colisores mudaram);
+ * NPCs com um campo antigo pedem um novo no próximo passo.
+ */
+public class PathfindingService {
+    private static final int CACHE_SIZE = 4096;
+    private static final int MAX_QUEUED_REQUESTS = 256;
+    private static final int FLOW_FIELD_CACHE_SIZE = 32;   // cada campo ocupa ~5 bytes por tile
+
+    private final CollisionMap collisionMap;
+    private final HierarchicalPathfinder pathfinder;
+    private final boolean[] walkable;
+    private final int tileWidth;
+    private final int tileHeight;
+    private final int mapWidth;
+    private final int mapHeight;
+    private final ThreadPoolExecutor workers;
+    private final Map<Long, int[]> cache;
+    private final Map<Long, CompletableFuture<int[]>> pending = new ConcurrentHashMap<>();
+    private final Map<Integer, FlowField> flowFields;
+    private final Map<Integer, CompletableFuture<FlowField>> pendingFields = new ConcurrentHashMap<>();
+    private volatile int flowFieldVersion;
+    private final LongAdder rejectedRequests = new LongAdder();   // incrementado pelos workers do NPCSimulation
+
+    public PathfindingService(CollisionMap collisionMap, int columns, int rows, int tileWidth, int tileHeight, int threads) {
+        this.collisionMap = collisionMap;
+        this.tileWidth = tileWidth;
+        this.tileHeight = tileHeight;
+        this.mapWidth = columns * tileWidth;
+        this.mapHeight = rows * tileHeight;
+
+        this.walkable = new boolean[columns * rows];
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                walkable[row * columns + column] = canStandAt(column * tileWidth, row * tileHeight);
+            }
+        }
+        this.pathfinder = new HierarchicalPathfinder(walkable, columns, rows);
+
+        this.cache = new LinkedHashMap<Long, int[]>(CACHE_SIZE, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, int[]> eldest) {
+                return size() > CACHE_SIZE;
+            }
+        };
+        this.flowFields = new LinkedHashMap<Integer, FlowField>(FLOW_FIELD_CACHE_SIZE, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, FlowField> eldest) {
+                return size() > FLOW_FIELD_CACHE_SIZE;
+            }
+        };
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(MAX_QUEUED_REQUESTS),
+            runnable -> {
+                Thread thread = new Thread(runnable, "pathfinding-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+    // Posição em pixels onde a caixa de colisão cabe dentro do mapa sem tocar colisores
+    public boolean canStandAt(int x, int y) {
+        // Mesma caixa dos pés do PlayerMovement: NPCs e players andam pelos mesmos lugares
+        int footX = x + PlayerMovement.FOOT_OFFSET_X;
+        int footY = y + PlayerMovement.FOOT_OFFSET_Y;
+        if (x < 0 || y < 0 || footX + PlayerMovement.FOOT_WIDTH > mapWidth || footY + PlayerMovement.FOOT_HEIGHT > mapHeight) {
+            return false;
+        }
+        return !collisionMap.collides(footX, footY, PlayerMovement.FOOT_WIDTH, PlayerMovement.FOOT_HEIGHT);
+    }
+
+    /**
+     * Pede um caminho entre duas posições em pixels. O future completa com os
+     * tiles do caminho (índice = linha * colunas + coluna, incluindo origem e
+     * destino) ou null se não houver caminho ou o pool estiver saturado.
+     */
+    public CompletableFuture<int[]> requestPath(int fromX, int fromY, int toX, int toY) {
+        int start = tileAt(fromX, fromY);
+        int goal = tileAt(toX, toY);
+        if (start < 0 || goal < 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        long key = ((long) start << 32) | (goal & 0xFFFFFFFFL);
+        int[] cached;
+        synchronized (cache) {
+            cached = cache.get(key);
+        }
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        CompletableFuture<int[]> future = new CompletableFuture<>();
+        CompletableFuture<int[]> existing = pending.putIfAbsent(key, future);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            workers.execute(() -> {
+                int[] path = null;
+                try {
+                    path = pathfinder.findPath(start, goal);
+                    if (path != null) {
+                        synchronized (cache) {
+                            cache.put(key, path);
+                        }
+                    }
+                } finally {
+                    pending.remove(key);
+                    future.complete(path);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedRequests.increment();
+            pending.remove(key);
+            future.complete(null);
+        }
+        return future;
+    }
+
+    /**
+     * Pede o campo de fluxo até uma posição em pixels. Todos os NPCs com o mesmo
+     * tile de destino recebem o mesmo campo; o future completa com null se o
+     * destino estiver fora do mapa ou o pool estiver saturado.
+     */
+    public CompletableFuture<FlowField> requestFlowField(int toX, int toY) {
+        int goal = tileAt(toX, toY);
+        if (goal < 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        FlowField cached;
+        synchronized (flowFields) {
+            cached = flowFields.get(goal);
+        }
+        if (cached != null && isCurrent(cached)) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        CompletableFuture<FlowField> future = new CompletableFuture<>();
+        CompletableFuture<FlowField> existing = pendingFields.putIfAbsent(goal, future);
+        if (existing != null) {
+            return existing;
+        }
+        int version = flowFieldVersion;
+        try {
+            workers.execute(() -> {
+                FlowField field = null;
+                try {
+                    field = new FlowField(walkable, pathfinder.getColumns(), pathfinder.getRows(), goal, version);
+                    // Um campo calculado durante uma invalidação não entra no cache
+                    synchronized (flowFields) {
+                        if (version == flowFieldVersion) flowFields.put(goal, field);
+                    }
+                } finally {
+                    pendingFields.remove(goal);
+                    future.complete(field);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedRequests.increment();
+            pendingFields.remove(goal);
+            future.complete(null);
+        }
+        return future;
+    }
+
+    // false depois de invalidateFlowFields(): o NPC deve pedir o campo de novo
+    public boolean isCurrent(FlowField field) {
+        return field.getVersion() == flowFieldVersion;
+    }
+
+    public void invalidateFlowFields() {
+        synchronized (flowFields) {
+            flowFieldVersion++;
+            flowFields.clear();
+        }
+    }
+
+    // Tile que contém a posição, ou -1 fora do mapa
+    public int tileAt(int x, int y) {
+        int column = Math.floorDiv(x, tileWidth);
+        int row = Math.floorDiv(y, tileHeight);
+        if (column < 0 || row < 0 || column >= pathfinder.getColumns() || row >= pathfinder.getRows()) {
+            return -1;
+        }
+        return row * pathfinder.getColumns() + column;
+    }
+
+    public int tileX(int tile) { return tile % pathfinder.getColumns() * tileWidth; }
+    public int tileY(int tile) { return tile / pathfinder.getColumns() * tileHeight; }
+    public int getTileWidth() { return tileWidth; }
+    public int getTileHeight() { return tileHeight; }
+    public long getRejectedRequests() { return rejectedRequests.sum(); }
+    public int getQueuedRequests() { return workers.getQueue().size(); }
+    public int getCachedFlowFields() {
+        synchronized (flowFields) {
+            return flowFields.size();
+        }
+    }
+
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+}
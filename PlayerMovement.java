@@ -0,0 +1,277 @@
+// PlayerMovement.java
+import java.awt.Rectangle;
+
+/**
+ * Máquina de estados do movimento do player, em passos de tile (32 px).
+ * É a mesma no servidor (autoritativo) e no cliente (predição): cada passo
+ * aplica no máximo um comando de input e avança um tick de STEP_MILLIS, então
+ * a mesma sequência de comandos a partir do mesmo estado produz as mesmas posições.
+ * O relógio é interno (passos * STEP_MILLIS), independente do relógio de parede.
+ *
+ * Comandos: 0 = soltar teclas, 1..4 = W, A, S, D; NO_INPUT = passo sem comando novo.
+ * O estado completo (exceto posição) cabe em um long (encodeState/restore),
+ * enviado ao cliente junto do último input processado.
+ */
+public class PlayerMovement {
+    public static final int STEP_MILLIS = 16;
+    public static final byte NO_INPUT = -1;
+    public static final byte RELEASE = 0;
+    public static final byte UP = 1;
+    public static final byte LEFT = 2;
+    public static final byte DOWN = 3;
+    public static final byte RIGHT = 4;
+
+    private static final int PIXELS_PER_SQM = 32;
+    private static final long DIRECTION_CHANGE_PAUSE_DURATION = 200;
+    private static final long INPUT_BUFFER_DURATION = 300; // 300ms para buffer de input
+    private static final int MAX_ENCODED_MILLIS = 1023;
+
+    // Caixa de colisão relativa à posição do player (canto superior esquerdo do sprite)
+    public static final int FOOT_OFFSET_X = 10;   // Desloca um pouco mais para dentro no eixo X
+    public static final int FOOT_OFFSET_Y = 32;   // Começa na base do sprite
+    public static final int FOOT_WIDTH = 12;
+    public static final int FOOT_HEIGHT = 14;
+
+    private enum MovementState {
+        IDLE,               // Parado
+        COMPLETING_SQM,     // Completando o quadrado atual
+        PAUSED,            // Em pausa forçada após completar
+        MOVING             // Em movimento normal
+    }
+    private static final MovementState[] STATES = MovementState.values();
+
+    private final CollisionMap collisionMap;
+    private final int mapWidth;
+    private final int mapHeight;
+    private int x;
+    private int y;
+    private byte facing = DOWN;
+    private int pixelsMovedInCurrentSQM = 0;
+    private byte currentDirection = RELEASE;   // RELEASE = nenhuma
+    private byte nextDirection = RELEASE;
+    private byte activeInput = RELEASE;
+    private MovementState movementState = MovementState.IDLE;
+    private long time;
+    private long pauseEndTime = 0;
+    private long lastInputTime;
+
+    public PlayerMovement(CollisionMap collisionMap, int mapWidth, int mapHeight, int x, int y) {
+        this.collisionMap = collisionMap;
+        this.mapWidth = mapWidth;
+        this.mapHeight = mapHeight;
+        this.x = x;
+        this.y = y;
+    }
+
+    public static byte parseCommand(String input) {
+        switch (input) {
+            case "": return RELEASE;
+            case "W": return UP;
+            case "A": return LEFT;
+            case "S": return DOWN;
+            case "D": return RIGHT;
+            default: return NO_INPUT;
+        }
+    }
+
+    public static String commandName(byte command) {
+        switch (command) {
+            case UP: return "W";
+            case LEFT: return "A";
+            case DOWN: return "S";
+            case RIGHT: return "D";
+            default: return "";
+        }
+    }
+
+    // Um tick de simulação; devolve true se o player se moveu ou mudou de estado
+    public boolean step(byte command) {
+        time += STEP_MILLIS;
+        if (command != NO_INPUT) {
+            applyInput(command);
+        }
+        return update();
+    }
+
+    private void applyInput(byte input) {
+        if (input == RELEASE) {
+            activeInput = RELEASE;
+            return;
+        }
+
+        lastInputTime = time;
+        activeInput = input;
+
+        if (movementState == MovementState.COMPLETING_SQM ||
+            movementState == MovementState.PAUSED) {
+            if (input != currentDirection) {
+                nextDirection = input;
+            }
+            return;
+        }
+
+        if (movementState == MovementState.MOVING && input != currentDirection) {
+            movementState = MovementState.COMPLETING_SQM;
+            nextDirection = input;
+            return;
+        }
+
+        handleMovement(input);
+    }
+
+    private boolean update() {
+        switch (movementState) {
+            case COMPLETING_SQM:
+                if (pixelsMovedInCurrentSQM >= PIXELS_PER_SQM) {
+                    movementState = MovementState.PAUSED;
+                    pauseEndTime = time + DIRECTION_CHANGE_PAUSE_DURATION;
+                    pixelsMovedInCurrentSQM = 0;
+                    return true;
+                }
+                moveInDirection(currentDirection);
+                pixelsMovedInCurrentSQM += GameCore.GameState.getMoveStep();
+                return true;
+
+            case PAUSED:
+                if (time >= pauseEndTime) {
+                    currentDirection = RELEASE;
+                    movementState = MovementState.IDLE;
+
+                    if (nextDirection != RELEASE &&
+                        time - lastInputTime < INPUT_BUFFER_DURATION) {
+                        handleMovement(nextDirection);
+                        nextDirection = RELEASE;
+                    }
+                }
+                return true;
+
+            case MOVING:
+                if (pixelsMovedInCurrentSQM >= PIXELS_PER_SQM) {
+                    pixelsMovedInCurrentSQM = 0;
+
+                    if (activeInput == RELEASE &&
+                        time - lastInputTime >= INPUT_BUFFER_DURATION) {
+                        movementState = MovementState.IDLE;
+                        currentDirection = RELEASE;
+                        return true;
+                    }
+                }
+
+                moveInDirection(currentDirection);
+                pixelsMovedInCurrentSQM += GameCore.GameState.getMoveStep();
+                return true;
+
+            case IDLE:
+                if (activeInput != RELEASE ||
+                    (nextDirection != RELEASE &&
+                     time - lastInputTime < INPUT_BUFFER_DURATION)) {
+                    handleMovement(activeInput != RELEASE ? activeInput : nextDirection);
+                }
+                return false;
+        }
+        return false;
+    }
+
+    private void moveInDirection(byte direction) {
+        switch (direction) {
+            case UP: y -= GameCore.GameState.getMoveStep(); break;
+            case LEFT: x -= GameCore.GameState.getMoveStep(); break;
+            case DOWN: y += GameCore.GameState.getMoveStep(); break;
+            case RIGHT: x += GameCore.GameState.getMoveStep(); break;
+        }
+    }
+
+    private boolean handleMovement(byte input) {
+        int newX = x;
+        int newY = y;
+
+        switch (input) {
+            case UP: newY -= GameCore.GameState.getMoveStep(); break;
+            case LEFT: newX -= GameCore.GameState.getMoveStep(); break;
+            case DOWN: newY += GameCore.GameState.getMoveStep(); break;
+            case RIGHT: newX += GameCore.GameState.getMoveStep(); break;
+        }
+
+        boolean canMove = false;
+        switch (input) {
+            case UP: canMove = newY > 0; break;
+            case LEFT: canMove = newX > 0; break;
+            case DOWN: canMove = newY < mapHeight - 50; break;
+            case RIGHT: canMove = newX < mapWidth - 50; break;
+        }
+
+        if (canMove) {
+            boolean collision = collides(newX, newY);
+
+            movementState = MovementState.IDLE;
+            currentDirection = RELEASE;
+
+            if (!collision) {
+                movementState = MovementState.MOVING;
+                currentDirection = input;
+                pixelsMovedInCurrentSQM = 0;
+                facing = input;
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private boolean collides(int x, int y) {
+        return collisionMap.collides(x + FOOT_OFFSET_X, y + FOOT_OFFSET_Y, FOOT_WIDTH, FOOT_HEIGHT);
+    }
+
+    // Caixa de colisão (pés) na posição atual sobrepõe a área (ex.: portal do mapa)
+    public boolean overlaps(Rectangle area) {
+        return area.intersects(x + FOOT_OFFSET_X, y + FOOT_OFFSET_Y, FOOT_WIDTH, FOOT_HEIGHT);
+    }
+
+    /**
+     * Estado sem a posição, em bits:
+     * [0-1] estado, [2-7] pixels no tile, [8-10] direção atual, [11-13] próxima,
+     * [14-16] input ativo, [17-19] direção do sprite, [20-29] pausa restante em ms,
+     * [30-39] ms desde o último input (saturado: só importa se é menor que 300).
+     */
+    public long encodeState() {
+        long pauseRemaining = Math.min(MAX_ENCODED_MILLIS, Math.max(0, pauseEndTime - time));
+        long sinceLastInput = Math.min(MAX_ENCODED_MILLIS, Math.max(0, time - lastInputTime));
+        return movementState.ordinal()
+            | (long) pixelsMovedInCurrentSQM << 2
+            | (long) currentDirection << 8
+            | (long) nextDirection << 11
+            | (long) activeInput << 14
+            | (long) facing << 17
+            | pauseRemaining << 20
+            | sinceLastInput << 30;
+    }
+
+    // Volta ao estado autoritativo recebido do servidor; o relógio interno recomeça em zero
+    public void restore(int x, int y, long state) {
+        this.x = x;
+        this.y = y;
+        movementState = STATES[(int) (state & 0x03)];
+        pixelsMovedInCurrentSQM = (int) (state >>> 2) & 0x3F;
+        currentDirection = (byte) ((state >>> 8) & 0x07);
+        nextDirection = (byte) ((state >>> 11) & 0x07);
+        activeInput = (byte) ((state >>> 14) & 0x07);
+        facing = (byte) ((state >>> 17) & 0x07);
+        time = 0;
+        pauseEndTime = (state >>> 20) & MAX_ENCODED_MILLIS;
+        lastInputTime = -((state >>> 30) & MAX_ENCODED_MILLIS);
+    }
+
+    public int getX() { return x; }
+    public int getY() { return y; }
+
+    public String getDirection() {
+        switch (facing) {
+            case UP: return "top";
+            case LEFT: return "left";
+            case RIGHT: return "right";
+            default: return "down";
+        }
+    }
+
+    public boolean isMoving() { return movementState == MovementState.MOVING || movementState == MovementState.COMPLETING_SQM; }
+}
@@ -0,0 +1,94 @@
+// PlayerPrediction.java
+
+/**
+ * Predição do player local com reconciliação pelo servidor.
+ * Cada passo do game loop aplica o comando localmente na mesma máquina de
+ * estados do servidor (PlayerMovement) e guarda o comando com seu número de
+ * sequência. Quando um snapshot confirma a sequência N, o estado autoritativo
+ * substitui o previsto e os comandos posteriores a N são reaplicados, então o
+ * movimento responde na hora e o servidor continua com a palavra final.
+ * Acessada pelo game loop e pela thread de rede; os métodos são sincronizados.
+ */
+public class PlayerPrediction {
+    private static final int MAX_PENDING_INPUTS = 256;   // ~4 s de inputs sem confirmação
+
+    private CollisionMap collisionMap;
+    private int mapWidth;
+    private int mapHeight;
+    private final int[] pendingSequences = new int[MAX_PENDING_INPUTS];
+    private final byte[] pendingCommands = new byte[MAX_PENDING_INPUTS];
+    private int pendingHead;
+    private int pendingCount;
+    private int nextSequence = 1;
+    private PlayerMovement movement;   // null até o primeiro snapshot
+    private long corrections;
+
+    public PlayerPrediction(CollisionMap collisionMap, int mapWidth, int mapHeight) {
+        this.collisionMap = collisionMap;
+        this.mapWidth = mapWidth;
+        this.mapHeight = mapHeight;
+    }
+
+    // Aplica o comando localmente e devolve a sequência a enviar, ou -1 antes do primeiro snapshot
+    public synchronized int predict(byte command) {
+        if (movement == null) return -1;
+        if (pendingCount == MAX_PENDING_INPUTS) {
+            // Servidor sem confirmar há muito tempo: o mais antigo não será mais reaplicado
+            pendingHead = (pendingHead + 1) % MAX_PENDING_INPUTS;
+            pendingCount--;
+        }
+        int sequence = nextSequence++;
+        int index = (pendingHead + pendingCount) % MAX_PENDING_INPUTS;
+        pendingSequences[index] = sequence;
+        pendingCommands[index] = command;
+        pendingCount++;
+        movement.step(command);
+        return sequence;
+    }
+
+    // Estado do servidor após o input 'sequence': descarta os confirmados e reaplica o resto
+    public synchronized void reconcile(int sequence, int x, int y, long movementState) {
+        while (pendingCount > 0 && pendingSequences[pendingHead] <= sequence) {
+            pendingHead = (pendingHead + 1) % MAX_PENDING_INPUTS;
+            pendingCount--;
+        }
+
+        if (movement == null) {
+            movement = new PlayerMovement(collisionMap, mapWidth, mapHeight, x, y);
+            movement.restore(x, y, movementState);
+            return;
+        }
+        int predictedX = movement.getX();
+        int predictedY = movement.getY();
+        movement.restore(x, y, movementState);
+        for (int i = 0; i < pendingCount; i++) {
+            movement.step(pendingCommands[(pendingHead + i) % MAX_PENDING_INPUTS]);
+        }
+        if (movement.getX() != predictedX || movement.getY() != predictedY) {
+            corrections++;
+        }
+    }
+
+    // Troca de zona: a predição recomeça no próximo snapshot, já no mapa novo.
+    // As sequências continuam, pois o servidor mantém a última confirmada.
+    public synchronized void changeMap(CollisionMap collisionMap, int mapWidth, int mapHeight) {
+        this.collisionMap = collisionMap;
+        this.mapWidth = mapWidth;
+        this.mapHeight = mapHeight;
+        movement = null;
+        pendingHead = 0;
+        pendingCount = 0;
+    }
+
+    // Copia a posição prevista para o estado desenhado; devolve se está andando
+    public synchronized boolean applyTo(GameCore.PlayerState state) {
+        if (movement == null) return false;   // troca de zona entre isReady() e aqui
+        state.getPosition().setLocation(movement.getX(), movement.getY());
+        state.setDirection(movement.getDirection());
+        return movement.isMoving();
+    }
+
+    public synchronized boolean isReady() { return movement != null; }
+    public synchronized int getPendingCount() { return pendingCount; }
+    public synchronized long getCorrections() { return corrections; }
+}
@@ -0,0 +1,181 @@
+// RemoteEntityTable.java
+import java.util.Arrays;
+
+/**
+ * Tabela persistente das entidades de um tipo (players ou NPCs) que o servidor
+ * replica para o cliente. Cada entidade visível ocupa uma linha com o seu
+ * InterpolationBuffer e a visão desenhada; um IntIndex resolve ID -> linha, então
+ * IDs grandes ou corrompidos vindos da rede não aumentam a tabela, e a lista densa
+ * dos IDs presentes serve ao game loop. Cada snapshot só atualiza as linhas em
+ * vigor; o Listener é chamado apenas quando o conjunto muda (entrada ou saída),
+ * e as linhas liberadas são reaproveitadas com os seus buffers.
+ *
+ * A thread de rede escreve e o game loop lê; os métodos são sincronizados. As
+ * entradas e saídas ficam numa fila, aplicada pelo game loop em applyChanges():
+ * o Listener (que ocupa e libera slots do EntityStore) roda só na thread que
+ * desenha. Até lá get() devolve null para a entidade nova, e a linha de uma
+ * entidade que saiu só é liberada depois de a visão ser descartada. Uma saída
+ * durante a varredura pode fazer uma entidade ser pulada naquele frame.
+ */
+public class RemoteEntityTable<T> {
+    public interface Listener<T> {
+        // Cria a visão da entidade que entrou; null ignora a entidade (ex.: NPC sem tipo)
+        T onSpawn(int id, int x, int y, int directionCode, String npcType);
+        void onDespawn(int id, T entity);
+    }
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final Listener<T> listener;
+    private final IntIndex rowById = new IntIndex(INITIAL_CAPACITY);   // só IDs presentes
+    // Linhas: ID, amostras e visão; liberadas vão para a free-list
+    private int[] rowIds = new int[INITIAL_CAPACITY];
+    private InterpolationBuffer[] buffers = new InterpolationBuffer[INITIAL_CAPACITY];
+    private Object[] entities = new Object[INITIAL_CAPACITY];
+    private int[] liveIndexByRow = new int[INITIAL_CAPACITY];   // linha -> posição em liveIds + 1 (0 = ausente)
+    private int rowLimit;
+    private int[] freeRows = new int[INITIAL_CAPACITY];
+    private int freeCount;
+    private int[] liveIds = new int[INITIAL_CAPACITY];
+    private int[] liveRows = new int[INITIAL_CAPACITY];
+    private int liveCount;
+    // Entradas e saídas pendentes por linha, na ordem em que chegaram (arrays paralelos, sem alocação por mudança)
+    private boolean[] changeSpawn = new boolean[INITIAL_CAPACITY];
+    private int[] changeRow = new int[INITIAL_CAPACITY];
+    private int[] changeX = new int[INITIAL_CAPACITY];
+    private int[] changeY = new int[INITIAL_CAPACITY];
+    private int[] changeDirection = new int[INITIAL_CAPACITY];
+    private String[] changeNpcType = new String[INITIAL_CAPACITY];
+    private int changeCount;
+
+    public RemoteEntityTable(Listener<T> listener) {
+        this.listener = listener;
+    }
+
+    // Amostra do snapshot de serverTime; npcType só vem na entrada de NPCs
+    public synchronized void update(long serverTime, int id, int x, int y, int directionCode, int spriteIndex,
+                                    boolean moving, String npcType) {
+        if (id < 0) return;
+        int row = rowById.get(id);
+        if (row < 0) {
+            row = spawn(id);
+            queueChange(true, row, x, y, directionCode, npcType);
+        }
+        buffers[row].add(serverTime, x, y, directionCode, spriteIndex, moving);
+    }
+
+    public synchronized void remove(int id) {
+        int row = row(id);
+        if (row < 0) return;
+        rowById.remove(id);
+        int index = liveIndexByRow[row] - 1;
+        int last = --liveCount;
+        liveIds[index] = liveIds[last];
+        liveRows[index] = liveRows[last];
+        liveIndexByRow[liveRows[index]] = index + 1;
+        liveIndexByRow[row] = 0;
+        queueChange(false, row, 0, 0, 0, null);
+    }
+
+    /**
+     * Chamado pelo game loop antes de ler a tabela: cria e descarta as visões das
+     * entidades que entraram ou saíram desde a última chamada, na ordem da rede.
+     */
+    public synchronized void applyChanges() {
+        for (int i = 0; i < changeCount; i++) {
+            int row = changeRow[i];
+            if (changeSpawn[i]) {
+                // null mantém a linha sem visão até a saída (ex.: NPC sem tipo)
+                entities[row] = listener.onSpawn(rowIds[row], changeX[i], changeY[i], changeDirection[i], changeNpcType[i]);
+                changeNpcType[i] = null;
+                continue;
+            }
+            @SuppressWarnings("unchecked")
+            T entity = (T) entities[row];
+            entities[row] = null;
+            if (entity != null) {
+                listener.onDespawn(rowIds[row], entity);
+            }
+            if (freeCount == freeRows.length) {
+                freeRows = Arrays.copyOf(freeRows, freeCount * 2);
+            }
+            freeRows[freeCount++] = row;
+        }
+        changeCount = 0;
+    }
+
+    private void queueChange(boolean spawn, int row, int x, int y, int directionCode, String npcType) {
+        if (changeCount == changeRow.length) {
+            int capacity = changeCount * 2;
+            changeSpawn = Arrays.copyOf(changeSpawn, capacity);
+            changeRow = Arrays.copyOf(changeRow, capacity);
+            changeX = Arrays.copyOf(changeX, capacity);
+            changeY = Arrays.copyOf(changeY, capacity);
+            changeDirection = Arrays.copyOf(changeDirection, capacity);
+            changeNpcType = Arrays.copyOf(changeNpcType, capacity);
+        }
+        changeSpawn[changeCount] = spawn;
+        changeRow[changeCount] = row;
+        changeX[changeCount] = x;
+        changeY[changeCount] = y;
+        changeDirection[changeCount] = directionCode;
+        changeNpcType[changeCount] = npcType;
+        changeCount++;
+    }
+
+    private int spawn(int id) {
+        int row;
+        if (freeCount > 0) {
+            row = freeRows[--freeCount];
+            buffers[row].clear();
+        } else {
+            if (rowLimit == rowIds.length) {
+                growRows();
+            }
+            row = rowLimit++;
+            buffers[row] = new InterpolationBuffer();
+        }
+        rowIds[row] = id;
+        rowById.put(id, row);
+        if (liveCount == liveIds.length) {
+            liveIds = Arrays.copyOf(liveIds, liveCount * 2);
+            liveRows = Arrays.copyOf(liveRows, liveCount * 2);
+        }
+        liveIds[liveCount] = id;
+        liveRows[liveCount] = row;
+        liveIndexByRow[row] = ++liveCount;
+        return row;
+    }
+
+    private void growRows() {
+        int capacity = rowIds.length * 2;
+        rowIds = Arrays.copyOf(rowIds, capacity);
+        buffers = Arrays.copyOf(buffers, capacity);
+        entities = Arrays.copyOf(entities, capacity);
+        liveIndexByRow = Arrays.copyOf(liveIndexByRow, capacity);
+    }
+
+    public synchronized boolean isPresent(int id) {
+        return row(id) >= 0;
+    }
+
+    private int row(int id) {
+        return id >= 0 ? rowById.get(id) : -1;
+    }
+
+    // Varredura: for (i < size()) { id = getId(i); ... }; -1 se a tabela encolheu no meio
+    public synchronized int size() { return liveCount; }
+    public synchronized int getId(int index) { return index < liveCount ? liveIds[index] : -1; }
+
+    // null se o ID não está presente
+    public synchronized InterpolationBuffer getSamples(int id) {
+        int row = row(id);
+        return row >= 0 ? buffers[row] : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public synchronized T get(int id) {
+        int row = row(id);
+        return row >= 0 ? (T) entities[row] : null;
+    }
+}
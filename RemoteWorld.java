@@ -0,0 +1,118 @@
+// RemoteWorld.java
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Players e NPCs replicados pelo servidor no cliente. A thread de rede decodifica
+ * os snapshots (decodeSnapshot) nas RemoteEntityTables; o game loop aplica as
+ * entradas e saídas (applyChanges) e amostra as tabelas. Fica fora do GameClient,
+ * sem Swing, para que o HotPathBenchmark meça este mesmo código.
+ */
+public class RemoteWorld {
+    // Estado do servidor após o último input confirmado do player local
+    public interface InputAckListener {
+        void onInputAck(int sequence, int x, int y, long movementState);
+    }
+
+    private final Map<Integer, GameCore.PlayerState> players = new ConcurrentHashMap<>();   // visões desenhadas pelo SpriteRenderer
+    private final NPCManager npcManager = new NPCManager();   // NPCs recebidos do servidor; sem simulação local
+    private final RemoteEntityTable<GameCore.PlayerState> remotePlayers;
+    private final RemoteEntityTable<NPC> remoteNPCs;
+    private final InterpolationBuffer.Clock serverClock;
+    private final SnapshotHandler snapshotHandler = new SnapshotHandler();
+    private final SpriteAtlas atlas;
+    private final InputAckListener ackListener;
+
+    public RemoteWorld(long interpolationDelay, SpriteAtlas atlas, InputAckListener ackListener) {
+        this.serverClock = new InterpolationBuffer.Clock(interpolationDelay);
+        this.atlas = atlas;
+        this.ackListener = ackListener;
+        remotePlayers = new RemoteEntityTable<>(new RemoteEntityTable.Listener<GameCore.PlayerState>() {
+            @Override
+            public GameCore.PlayerState onSpawn(int id, int x, int y, int directionCode, String npcType) {
+                GameCore.PlayerState player = new GameCore.PlayerState(id, x, y);
+                player.setDirectionCode(directionCode);
+                players.put(id, player);
+                return player;
+            }
+
+            @Override
+            public void onDespawn(int id, GameCore.PlayerState player) {
+                players.remove(id);
+            }
+        });
+        remoteNPCs = new RemoteEntityTable<>(new RemoteEntityTable.Listener<NPC>() {
+            @Override
+            public NPC onSpawn(int id, int x, int y, int directionCode, String npcType) {
+                if (npcType == null) return null;   // tipo perdido: espera a próxima entrada
+                NPC npc = new NPC(npcManager.getStore(), id, x, y, npcType, NPC.NPCBehavior.STATIONARY);
+                npc.setDirectionCode(directionCode);
+                npc.setSpriteBase(atlas.requestNPC(npcType));   // não bloqueia: LOADING até carregar
+                npcManager.addNPC(npc);
+                return npc;
+            }
+
+            @Override
+            public void onDespawn(int id, NPC npc) {
+                npcManager.removeNPC(id);
+            }
+        });
+    }
+
+    // Thread de rede: corpo de uma mensagem MSG_SNAPSHOT (depois do byte de tipo)
+    public void decodeSnapshot(ByteBuffer message) {
+        snapshotHandler.receiveTime = System.currentTimeMillis();
+        SnapshotCodec.decodeSnapshot(message, snapshotHandler);
+    }
+
+    // Game loop: entradas e saídas vindas da rede; os slots do EntityStore só mudam nesta thread
+    public void applyChanges() {
+        remotePlayers.applyChanges();
+        remoteNPCs.applyChanges();
+    }
+
+    public Map<Integer, GameCore.PlayerState> getPlayers() { return players; }
+    public EntityStore getNPCStore() { return npcManager.getStore(); }
+    public int getNPCCount() { return npcManager.getNPCs().size(); }
+    public RemoteEntityTable<GameCore.PlayerState> getRemotePlayers() { return remotePlayers; }
+    public RemoteEntityTable<NPC> getRemoteNPCs() { return remoteNPCs; }
+    public InterpolationBuffer.Clock getServerClock() { return serverClock; }
+
+    // Visitor único, reaproveitado a cada snapshot (usado só pela thread de rede)
+    private class SnapshotHandler implements SnapshotCodec.SnapshotVisitor {
+        private long receiveTime;
+        private long serverTime;
+
+        @Override
+        public void onHeader(long tick, long serverTimeMillis) {
+            serverTime = serverTimeMillis;
+            serverClock.onSnapshot(serverTimeMillis, receiveTime);
+        }
+
+        @Override
+        public void onInputAck(int sequence, int x, int y, long movementState) {
+            ackListener.onInputAck(sequence, x, y, movementState);
+        }
+
+        @Override
+        public void onLeave(int id, boolean npc) {
+            if (npc) {
+                remoteNPCs.remove(id);
+            } else {
+                remotePlayers.remove(id);
+            }
+        }
+
+        @Override
+        public void onPlayer(int id, int x, int y, int directionCode, int spriteIndex, boolean moving, boolean entered) {
+            // O player local entra na tabela, mas é desenhado na posição prevista (onInputAck)
+            remotePlayers.update(serverTime, id, x, y, directionCode, spriteIndex, moving, null);
+        }
+
+        @Override
+        public void onNPC(int id, int x, int y, int directionCode, int spriteIndex, boolean moving, String npcType) {
+            remoteNPCs.update(serverTime, id, x, y, directionCode, spriteIndex, moving, npcType);
+        }
+    }
+}
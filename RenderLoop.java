@@ -0,0 +1,118 @@
+// RenderLoop.java
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Loop do cliente com atualização em passo fixo e renderização em taxa variável.
+ * A lógica (input, predição, câmera) roda sempre em passos de stepNanos, quantos
+ * couberem no tempo decorrido; depois um frame é desenhado com alpha = fração do
+ * próximo passo já decorrida, para interpolar entre o passo anterior e o atual.
+ * O frame seguinte espera até o prazo com parkNanos e termina o último trecho
+ * girando, porque parkNanos sozinho acorda com até ~1 ms de atraso.
+ */
+public class RenderLoop {
+    public interface Listener {
+        void update();
+        void render(float alpha);
+    }
+
+    private static final int MAX_STEPS_PER_FRAME = 8;                           // depois disso descarta o atraso
+    private static final long SPIN_NANOS = TimeUnit.MICROSECONDS.toNanos(1000);  // trecho final sem park
+    private static final double FRAME_SMOOTHING = 0.05;
+
+    private final String name;
+    private final long stepNanos;
+    private final long frameNanos;   // 0 = sem limite de FPS
+    private final Listener listener;
+    private volatile boolean running;
+    private Thread thread;
+
+    // Métricas
+    private volatile long frameCount;
+    private volatile long updateCount;
+    private volatile long droppedSteps;
+    private volatile long averageFrameNanos;
+    private volatile long maxFrameNanos;
+
+    public RenderLoop(String name, long stepNanos, int maxFramesPerSecond, Listener listener) {
+        this.name = name;
+        this.stepNanos = stepNanos;
+        this.frameNanos = maxFramesPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / maxFramesPerSecond : 0;
+        this.listener = listener;
+    }
+
+    public void start() {
+        running = true;
+        thread = new Thread(this::runLoop, name);
+        thread.setPriority(Thread.MAX_PRIORITY);
+        thread.start();
+    }
+
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void runLoop() {
+        long previous = System.nanoTime();
+        long lag = 0;
+        long nextFrame = previous;
+        long lastFrame = previous;
+
+        while (running) {
+            long now = System.nanoTime();
+            lag += now - previous;
+            previous = now;
+
+            if (lag >= stepNanos * MAX_STEPS_PER_FRAME) {
+                // Muito atrasado (ex.: janela arrastada, GC longo): não acumula passos
+                droppedSteps += lag / stepNanos - 1;
+                lag = stepNanos;
+            }
+            while (lag >= stepNanos) {
+                listener.update();
+                updateCount++;
+                lag -= stepNanos;
+            }
+
+            listener.render((float) lag / stepNanos);
+            recordFrame(System.nanoTime() - lastFrame);
+            lastFrame = System.nanoTime();
+
+            if (frameNanos > 0) {
+                nextFrame += frameNanos;
+                if (nextFrame < lastFrame - frameNanos) {
+                    nextFrame = lastFrame;   // frame muito lento: realinha em vez de correr atrás
+                }
+                waitUntil(nextFrame);
+            }
+        }
+    }
+
+    private void waitUntil(long deadline) {
+        long remaining;
+        while (running && (remaining = deadline - System.nanoTime()) > SPIN_NANOS) {
+            LockSupport.parkNanos(remaining - SPIN_NANOS);
+        }
+        while (running && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private void recordFrame(long intervalNanos) {
+        frameCount++;
+        averageFrameNanos = frameCount == 1 ? intervalNanos
+            : averageFrameNanos + (long) ((intervalNanos - averageFrameNanos) * FRAME_SMOOTHING);
+        if (frameCount > 1 && intervalNanos > maxFrameNanos) {
+            maxFrameNanos = intervalNanos;   // o primeiro intervalo inclui a inicialização
+        }
+    }
+
+    public long getFrameCount() { return frameCount; }
+    public long getUpdateCount() { return updateCount; }
+    public long getDroppedSteps() { return droppedSteps; }
+    public long getAverageFrameNanos() { return averageFrameNanos; }
+    public long getMaxFrameNanos() { return maxFrameNanos; }
+}
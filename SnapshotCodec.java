@@ -0,0 +1,395 @@
+// SnapshotCodec.java
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Protocolo binário servidor -> cliente.
+ * Cada mensagem é um frame [varint tamanho][byte tipo][payload].
+ *
+ * Snapshot: [varlong tick][varlong hora do servidor em ms]
+ * [varint último input processado][zigzag x][zigzag y][varlong estado do movimento]
+ * (do próprio player do cliente, para a reconciliação da predição),
+ * [varint saídas][varint chave...] (chave = id << 1 | 1 se NPC: players e NPCs
+ * podem ter o mesmo ID, então a saída diz de qual dos dois se trata)
+ * seguido de [varint quantidade] e,
+ * para cada entidade, [byte flags][varint id][zigzag x][zigzag y].
+ * Flags: bit 0 NPC, bit 1 andando, bits 2-3 direção, bits 4-6 índice de sprite
+ * (0..MAX_SPRITE_INDEX), bit 7 entrada.
+ * Entidades que acabaram de entrar na área de interesse do cliente levam a flag
+ * de entrada e, se forem NPCs, o nome do tipo logo em seguida.
+ *
+ * Zona: [string nome][string caminho do mapa], enviada ao entrar em uma zona,
+ * antes do primeiro snapshot dela.
+ *
+ * No servidor, o registro de cada entidade é codificado uma única vez por tick
+ * (recordAll) e os frames de cada cliente são montados copiando
+ * esses bytes em bloco (addRecord).
+ */
+public class SnapshotCodec {
+    public static final byte MSG_WELCOME = 1;
+    public static final byte MSG_SNAPSHOT = 2;
+    public static final byte MSG_SERVER_STATS = 3;
+    public static final byte MSG_ZONE = 4;
+
+    // Índice de sprite mais alto que cabe no frame: só 3 bits, o bit 7 é a flag de entrada.
+    // Folhas com mais de 8 quadros por direção precisam de outro campo no protocolo.
+    public static final int MAX_SPRITE_INDEX = 0x07;
+
+    // Bits do byte de flags
+    private static final int FLAG_NPC = 0x01;
+    private static final int FLAG_MOVING = 0x02;
+    private static final int DIRECTION_SHIFT = 2;   // 2 bits de direção
+    private static final int SPRITE_SHIFT = 4;      // 3 bits de índice de sprite (bits 4-6)
+    private static final int FLAG_ENTER = 0x80;
+
+    private static final String[] DIRECTIONS = { "down", "top", "left", "right" };
+
+    private static final int MAX_VARINT_SIZE = 5;
+    private static final int MAX_VARLONG_SIZE = 10;
+    private static final int MAX_ENTITY_SIZE = 1 + MAX_VARINT_SIZE * 4;
+
+    public interface SnapshotVisitor {
+        default void onHeader(long tick, long serverTimeMillis) {}
+        // Estado autoritativo do player local após o input 'sequence' (PlayerMovement.encodeState)
+        default void onInputAck(int sequence, int x, int y, long movementState) {}
+        void onLeave(int id, boolean npc);
+        // directionCode: ver directionCode/directionName
+        void onPlayer(int id, int x, int y, int directionCode, int spriteIndex, boolean moving, boolean entered);
+        // npcType é null quando o NPC já era conhecido pelo cliente
+        void onNPC(int id, int x, int y, int directionCode, int spriteIndex, boolean moving, String npcType);
+    }
+
+    private ByteBuffer buffer;
+    private ByteBuffer records;
+    private int[] recordOffsets;
+    private byte[][] recordTypes;
+    private int recordCount;
+    private final Map<String, byte[]> encodedTypes;
+
+    public SnapshotCodec() {
+        this.buffer = ByteBuffer.allocate(4096);
+        this.records = ByteBuffer.allocate(4096);
+        this.recordOffsets = new int[257];
+        this.recordTypes = new byte[256][];
+        this.encodedTypes = new HashMap<>();
+    }
+
+    // Prepara o buffer compartilhado com os registros de todas as entidades do tick
+    private void beginRecords(int entityCount) {
+        if (records.capacity() < entityCount * MAX_ENTITY_SIZE) {
+            records = ByteBuffer.allocate(Math.max(entityCount * MAX_ENTITY_SIZE, records.capacity() * 2));
+        }
+        if (recordTypes.length < entityCount) {
+            recordOffsets = new int[entityCount + 1];
+            recordTypes = new byte[entityCount][];
+        }
+        records.clear();
+        recordCount = 0;
+    }
+
+    // Codifica todas as entidades do snapshot; o índice do registro é o índice no snapshot
+    public void recordAll(WorldSnapshot snapshot) {
+        beginRecords(snapshot.size());
+        for (int i = 0; i < snapshot.size(); i++) {
+            byte[] name = null;
+            if (snapshot.isNPC(i)) {
+                name = encodedTypes.computeIfAbsent(snapshot.getNPCType(i), type -> type.getBytes(StandardCharsets.UTF_8));
+            }
+            byte flags = flags(snapshot.isNPC(i), snapshot.isMoving(i), false,
+                snapshot.getDirectionCode(i), snapshot.getSpriteIndex(i));
+            writeRecord(flags, snapshot.getId(i), snapshot.getX(i), snapshot.getY(i), name);
+        }
+    }
+
+    private void writeRecord(byte flags, int id, int x, int y, byte[] npcType) {
+        int index = recordCount++;
+        recordOffsets[index] = records.position();
+        recordTypes[index] = npcType;
+        records.put(flags);
+        putVarInt(records, id);
+        putVarInt(records, zigzag(x));
+        putVarInt(records, zigzag(y));
+        recordOffsets[index + 1] = records.position();
+    }
+
+    // Inicia um frame de snapshot no buffer reutilizável, já com o ack de input e os eventos de saída
+    public void beginSnapshot(long tick, long timeMillis, int inputSequence, int x, int y, long movementState,
+                              int[] leaving, int leaveCount, int entityCount) {
+        ensureCapacity(MAX_VARINT_SIZE * 6 + MAX_VARLONG_SIZE * 3 + 1
+            + leaveCount * MAX_VARINT_SIZE + entityCount * MAX_ENTITY_SIZE);
+        buffer.clear();
+        buffer.position(MAX_VARINT_SIZE);   // espaço reservado para o tamanho
+        buffer.put(MSG_SNAPSHOT);
+        putVarLong(buffer, tick);
+        putVarLong(buffer, timeMillis);
+        putVarInt(buffer, inputSequence);
+        putVarInt(buffer, zigzag(x));
+        putVarInt(buffer, zigzag(y));
+        putVarLong(buffer, movementState);
+        putVarInt(buffer, leaveCount);
+        for (int i = 0; i < leaveCount; i++) {
+            putVarInt(buffer, leaving[i]);
+        }
+        putVarInt(buffer, entityCount);
+    }
+
+    // Copia o registro já codificado para o frame do cliente
+    public void addRecord(int index, boolean entered) {
+        int offset = recordOffsets[index];
+        int length = recordOffsets[index + 1] - offset;
+        byte[] name = entered ? recordTypes[index] : null;
+        ensureCapacity(buffer.position() + length + (name != null ? MAX_VARINT_SIZE + name.length : 0));
+
+        int start = buffer.position();
+        buffer.put(records.array(), offset, length);
+        if (entered) {
+            buffer.put(start, (byte) (buffer.get(start) | FLAG_ENTER));
+        }
+        if (name != null) {
+            // O tipo só é enviado na entrada; o cliente guarda junto da entidade
+            putVarInt(buffer, name.length);
+            buffer.put(name);
+        }
+    }
+
+    // Fecha o frame e devolve uma cópia de tamanho exato, que pode ser compartilhada entre clientes
+    public ByteBuffer finishFrame() {
+        ByteBuffer frame = closeFrame(buffer);
+        ByteBuffer copy = ByteBuffer.allocate(frame.remaining());
+        copy.put(frame).flip();
+        return copy;
+    }
+
+    public static ByteBuffer encodeWelcome(int playerId) {
+        ByteBuffer frame = ByteBuffer.allocate(MAX_VARINT_SIZE * 2 + 1);
+        frame.position(MAX_VARINT_SIZE);
+        frame.put(MSG_WELCOME);
+        putVarInt(frame, playerId);
+        return closeFrame(frame);
+    }
+
+    public static int decodeWelcome(ByteBuffer message) {
+        return getVarInt(message);
+    }
+
+    // Decodifica o payload de um snapshot (após o byte de tipo)
+    public static void decodeSnapshot(ByteBuffer message, SnapshotVisitor visitor) {
+        long tick = getVarLong(message);
+        long serverTimeMillis = getVarLong(message);
+        visitor.onHeader(tick, serverTimeMillis);
+        int inputSequence = getVarInt(message);
+        int ackX = unzigzag(getVarInt(message));
+        int ackY = unzigzag(getVarInt(message));
+        visitor.onInputAck(inputSequence, ackX, ackY, getVarLong(message));
+
+        int leaveCount = getVarInt(message);
+        for (int i = 0; i < leaveCount; i++) {
+            int key = getVarInt(message);
+            visitor.onLeave(entityId(key), isNPCKey(key));
+        }
+
+        int count = getVarInt(message);
+        for (int i = 0; i < count; i++) {
+            int flags = message.get() & 0xFF;
+            int id = getVarInt(message);
+            int x = unzigzag(getVarInt(message));
+            int y = unzigzag(getVarInt(message));
+            int directionCode = (flags >> DIRECTION_SHIFT) & 0x03;
+            int spriteIndex = (flags >> SPRITE_SHIFT) & MAX_SPRITE_INDEX;
+            boolean moving = (flags & FLAG_MOVING) != 0;
+            boolean entered = (flags & FLAG_ENTER) != 0;
+
+            if ((flags & FLAG_NPC) != 0) {
+                String npcType = entered ? getString(message) : null;
+                visitor.onNPC(id, x, y, directionCode, spriteIndex, moving, npcType);
+            } else {
+                visitor.onPlayer(id, x, y, directionCode, spriteIndex, moving, entered);
+            }
+        }
+    }
+
+    // Zona em que o jogador acabou de entrar; o cliente troca o mapa antes dos snapshots seguintes
+    public static class ZoneInfo {
+        public final String name;
+        public final String mapPath;
+
+        public ZoneInfo(String name, String mapPath) {
+            this.name = name;
+            this.mapPath = mapPath;
+        }
+    }
+
+    public static ByteBuffer encodeZone(ZoneInfo zone) {
+        byte[] name = zone.name.getBytes(StandardCharsets.UTF_8);
+        byte[] mapPath = zone.mapPath.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer frame = ByteBuffer.allocate(MAX_VARINT_SIZE * 3 + 1 + name.length + mapPath.length);
+        frame.position(MAX_VARINT_SIZE);
+        frame.put(MSG_ZONE);
+        putVarInt(frame, name.length);
+        frame.put(name);
+        putVarInt(frame, mapPath.length);
+        frame.put(mapPath);
+        return closeFrame(frame);
+    }
+
+    public static ZoneInfo decodeZone(ByteBuffer message) {
+        return new ZoneInfo(getString(message), getString(message));
+    }
+
+    // Estatísticas do servidor enviadas periodicamente (usadas pelo gerador de carga)
+    public static class ServerStats {
+        public final long tick;
+        public final int clients;
+        public final long averageTickMicros;
+        public final long maxTickMicros;
+        public final long overruns;
+        public final long pendingBytes;
+
+        public ServerStats(long tick, int clients, long averageTickMicros, long maxTickMicros, long overruns, long pendingBytes) {
+            this.tick = tick;
+            this.clients = clients;
+            this.averageTickMicros = averageTickMicros;
+            this.maxTickMicros = maxTickMicros;
+            this.overruns = overruns;
+            this.pendingBytes = pendingBytes;
+        }
+    }
+
+    public static ByteBuffer encodeServerStats(ServerStats stats) {
+        ByteBuffer frame = ByteBuffer.allocate(MAX_VARINT_SIZE * 2 + 1 + MAX_VARLONG_SIZE * 5);
+        frame.position(MAX_VARINT_SIZE);
+        frame.put(MSG_SERVER_STATS);
+        putVarLong(frame, stats.tick);
+        putVarInt(frame, stats.clients);
+        putVarLong(frame, stats.averageTickMicros);
+        putVarLong(frame, stats.maxTickMicros);
+        putVarLong(frame, stats.overruns);
+        putVarLong(frame, stats.pendingBytes);
+        return closeFrame(frame);
+    }
+
+    public static ServerStats decodeServerStats(ByteBuffer message) {
+        return new ServerStats(
+            getVarLong(message),
+            getVarInt(message),
+            getVarLong(message),
+            getVarLong(message),
+            getVarLong(message),
+            getVarLong(message)
+        );
+    }
+
+    // Chave única por entidade (grade de interesse, conjuntos de conhecidos e saídas)
+    public static int entityKey(int id, boolean npc) {
+        return id << 1 | (npc ? 1 : 0);
+    }
+
+    public static int entityId(int key) { return key >>> 1; }
+    public static boolean isNPCKey(int key) { return (key & 1) != 0; }
+
+    public static int directionCode(String direction) {
+        switch (direction) {
+            case "top": return 1;
+            case "left": return 2;
+            case "right": return 3;
+            default: return 0;
+        }
+    }
+
+    public static String directionName(int code) {
+        return DIRECTIONS[code & 0x03];
+    }
+
+    private static byte flags(boolean npc, boolean moving, boolean entered, int directionCode, int spriteIndex) {
+        int flags = (npc ? FLAG_NPC : 0) | (moving ? FLAG_MOVING : 0) | (entered ? FLAG_ENTER : 0);
+        flags |= (directionCode & 0x03) << DIRECTION_SHIFT;
+        flags |= (spriteIndex & MAX_SPRITE_INDEX) << SPRITE_SHIFT;
+        return (byte) flags;
+    }
+
+    // Escreve o tamanho alinhado à direita no espaço reservado e devolve a fatia do frame
+    private static ByteBuffer closeFrame(ByteBuffer frame) {
+        int end = frame.position();
+        int length = end - MAX_VARINT_SIZE;
+        int start = MAX_VARINT_SIZE - varIntSize(length);
+        frame.position(start);
+        putVarInt(frame, length);
+        frame.position(start);
+        frame.limit(end);
+        return frame;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (buffer.capacity() >= capacity) return;
+        ByteBuffer grown = ByteBuffer.allocate(Math.max(capacity, buffer.capacity() * 2));
+        buffer.flip();
+        grown.put(buffer);
+        buffer = grown;
+    }
+
+    public static void putVarInt(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    public static int getVarInt(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint malformado");
+    }
+
+    public static void putVarLong(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    public static long getVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varlong malformado");
+    }
+
+    public static int varIntSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    public static String getString(ByteBuffer buffer) {
+        int length = getVarInt(buffer);
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    public static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    public static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
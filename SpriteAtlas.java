@@ -0,0 +1,150 @@
+// SpriteAtlas.java
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Rectangle;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.imageio.ImageIO;
+
+/**
+ * Quadros de sprite já recortados, endereçados por um ID inteiro.
+ * Cada folha (player ou tipo de NPC) é carregada uma vez, fatiada em imagens
+ * compatíveis com a tela (aceleráveis pelo Java2D) e recebe um ID base; o quadro
+ * de uma direção e passo de animação é base + direção * FRAMES_PER_DIRECTION + passo.
+ * O tipo do NPC é resolvido para a base quando a entidade é criada, então o
+ * desenho por frame é só uma leitura de array, sem strings nem alocação.
+ *
+ * Folhas de NPC ficam em /resources/npcs/<tipo>.png; tipos sem folha própria
+ * usam /resources/npcs.png. Tipos novos são carregados na thread "sprite-loader"
+ * (requestNPC devolve LOADING até lá), então nem a rede nem o game loop esperam
+ * por ImageIO. Registro sincronizado; leitura dos quadros sem trava.
+ */
+public class SpriteAtlas {
+    public static final int NO_SPRITE = -1;
+    public static final int LOADING = -2;   // folha do tipo ainda na fila do carregador
+    public static final int FRAMES_PER_DIRECTION = 2;
+    private static final int DIRECTIONS = 4;
+    private static final int FRAMES_PER_SHEET = DIRECTIONS * FRAMES_PER_DIRECTION;
+
+    // Layout comum das folhas de personagem, na ordem dos códigos de direção do SnapshotCodec
+    private static final Rectangle[] CHARACTER_FRAMES = {
+        new Rectangle(1, 0, 33, 49),    new Rectangle(35, 0, 33, 49),    // down
+        new Rectangle(0, 145, 33, 49),  new Rectangle(32, 145, 33, 49),  // top
+        new Rectangle(0, 48, 33, 49),   new Rectangle(33, 48, 33, 49),   // left
+        new Rectangle(0, 96, 33, 49),   new Rectangle(34, 96, 33, 49)    // right
+    };
+
+    private static final String PLAYER_SHEET = "/resources/player2.png";
+    private static final String NPC_SHEET_DIR = "/resources/npcs/";
+    private static final String DEFAULT_NPC_SHEET = "/resources/npcs.png";
+
+    private volatile BufferedImage[] frames = new BufferedImage[0];
+    private final Map<String, Integer> sheetBases = new HashMap<>();   // caminho -> base
+    private final Map<String, Integer> typeBases = new ConcurrentHashMap<>();   // tipo de NPC -> base ou LOADING
+    private final GraphicsConfiguration gc;
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "sprite-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public SpriteAtlas() {
+        this.gc = GraphicsEnvironment.isHeadless() ? null
+            : GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+    }
+
+    public int resolvePlayer() {
+        return resolveSheet(PLAYER_SHEET);
+    }
+
+    // Folha padrão dos NPCs: carregada junto com a do player, cobre os tipos sem folha própria
+    public int preloadNPCs() {
+        return resolveSheet(DEFAULT_NPC_SHEET);
+    }
+
+    /**
+     * Base dos quadros do tipo de NPC sem bloquear: LOADING enquanto a folha é
+     * carregada em segundo plano (chamar de novo depois), NO_SPRITE se não há folha.
+     */
+    public int requestNPC(String npcType) {
+        Integer base = typeBases.putIfAbsent(npcType, LOADING);
+        if (base != null) return base;
+        loader.execute(() -> typeBases.put(npcType, resolveNPC(npcType)));
+        return LOADING;
+    }
+
+    // Carrega na thread atual; usado pelo carregador
+    private int resolveNPC(String npcType) {
+        String path = NPC_SHEET_DIR + npcType + ".png";
+        return resolveSheet(SpriteAtlas.class.getResource(path) != null ? path : DEFAULT_NPC_SHEET);
+    }
+
+    private synchronized int resolveSheet(String path) {
+        Integer base = sheetBases.get(path);
+        if (base == null) {
+            base = load(path);
+            sheetBases.put(path, base);
+        }
+        return base;
+    }
+
+    private int load(String path) {
+        BufferedImage sheet;
+        try (InputStream in = SpriteAtlas.class.getResourceAsStream(path)) {
+            sheet = in != null ? ImageIO.read(in) : null;
+        } catch (IOException e) {
+            sheet = null;
+        }
+        if (sheet == null) {
+            System.err.println("Folha de sprites não encontrada: " + path);
+            return NO_SPRITE;
+        }
+
+        BufferedImage[] current = frames;
+        int base = current.length;
+        BufferedImage[] grown = Arrays.copyOf(current, base + FRAMES_PER_SHEET);
+        for (int i = 0; i < FRAMES_PER_SHEET; i++) {
+            grown[base + i] = slice(sheet, CHARACTER_FRAMES[i]);
+        }
+        frames = grown;   // publica a folha inteira de uma vez
+        return base;
+    }
+
+    private BufferedImage slice(BufferedImage sheet, Rectangle source) {
+        BufferedImage frame = gc != null
+            ? gc.createCompatibleImage(source.width, source.height, Transparency.TRANSLUCENT)
+            : new BufferedImage(source.width, source.height, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = frame.createGraphics();
+        try {
+            g.setComposite(AlphaComposite.Src);
+            // Recorte parcialmente fora da folha fica transparente, como no drawImage original
+            g.drawImage(sheet,
+                0, 0, source.width, source.height,
+                source.x, source.y, source.x + source.width, source.y + source.height,
+                null);
+        } finally {
+            g.dispose();
+        }
+        return frame;
+    }
+
+    // Quadro pronto para desenhar, ou null se a base é NO_SPRITE ou o passo não existe
+    public BufferedImage getFrame(int base, int directionCode, int spriteIndex) {
+        if (base < 0 || spriteIndex < 0 || spriteIndex >= FRAMES_PER_DIRECTION) return null;
+        return frames[base + (directionCode & 0x03) * FRAMES_PER_DIRECTION + spriteIndex];
+    }
+
+    public int getFrameCount() {
+        return frames.length;
+    }
+}
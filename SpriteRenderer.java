@@ -1,28 +1,23 @@
 import javax.swing.*;
 import java.awt.*;
+import java.awt.image.BufferedImage;
 import java.awt.image.VolatileImage;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 public class SpriteRenderer extends JPanel {
-    private Image spriteSheet;
-    private Image npcSpriteSheet;
-    private final Map<String, Rectangle> playerFrameCoordinates;
-    private final Map<String, Rectangle> npcFrameCoordinates;
-    private final Map<Integer, GameCore.PlayerState> players;
-    private final Map<Integer, NPC> npcs;
+    // Quadros recortados; NPCs guardam a base do seu tipo (NPC.getSpriteBase)
+    private final SpriteAtlas atlas;
+    private volatile int playerSpriteBase = SpriteAtlas.NO_SPRITE;
+    // Referências às coleções do cliente, lidas direto na pintura (sem cópia por frame)
+    private volatile Map<Integer, GameCore.PlayerState> players = Collections.emptyMap();
+    private volatile EntityStore npcStore;
     private Camera camera;
     private final RenderingHints renderingHints;
     private VolatileImage backBuffer;
-    private final Object renderLock = new Object();
     
     public SpriteRenderer() {
-        // Use ConcurrentHashMap para evitar problemas de concorrência
-        players = new ConcurrentHashMap<>();
-        npcs = new ConcurrentHashMap<>();
-        playerFrameCoordinates = new HashMap<>();
-        npcFrameCoordinates = new HashMap<>();
+        atlas = new SpriteAtlas();
         
         // Pré-configura RenderingHints
         renderingHints = new RenderingHints(
@@ -50,31 +45,12 @@ public class SpriteRenderer extends JPanel {
     }
     
     private void loadResources() {
-        spriteSheet = new ImageIcon(getClass().getResource("/resources/player2.png")).getImage();
-        npcSpriteSheet = new ImageIcon(getClass().getResource("/resources/npcs.png")).getImage();
-        initializeFrameCoordinates();
+        playerSpriteBase = atlas.resolvePlayer();
+        atlas.preloadNPCs();
     }
     
-    private void initializeFrameCoordinates() {
-        // Player frames
-        playerFrameCoordinates.put("down1", new Rectangle(1, 0, 33, 49));
-        playerFrameCoordinates.put("down2", new Rectangle(35, 0, 33, 49));
-        playerFrameCoordinates.put("top1", new Rectangle(0, 145, 33, 49));
-        playerFrameCoordinates.put("top2", new Rectangle(32, 145, 33, 49));
-        playerFrameCoordinates.put("left1", new Rectangle(0, 48, 33, 49));
-        playerFrameCoordinates.put("left2", new Rectangle(33, 48, 33, 49));
-        playerFrameCoordinates.put("right1", new Rectangle(0, 96, 33, 49));
-        playerFrameCoordinates.put("right2", new Rectangle(34, 96, 33, 49));
-        
-        // NPC frames
-        npcFrameCoordinates.put("merchant_down1", new Rectangle(1, 0, 33, 49));
-        npcFrameCoordinates.put("merchant_down2", new Rectangle(35, 0, 33, 49));
-        npcFrameCoordinates.put("merchant_left1", new Rectangle(0, 48, 33, 49));
-        npcFrameCoordinates.put("merchant_left2", new Rectangle(33, 48, 33, 49));
-        npcFrameCoordinates.put("merchant_right1", new Rectangle(0, 96, 33, 49));
-        npcFrameCoordinates.put("merchant_right2", new Rectangle(34, 96, 33, 49));
-        npcFrameCoordinates.put("merchant_top1", new Rectangle(0, 145, 33, 49));
-        npcFrameCoordinates.put("merchant_top2", new Rectangle(32, 145, 33, 49));
+    public SpriteAtlas getAtlas() {
+        return atlas;
     }
     
     @Override
@@ -105,20 +81,13 @@ public class SpriteRenderer extends JPanel {
         this.camera = camera;
     }
     
-    public void updatePlayers(Map<Integer, GameCore.PlayerState> newPlayers) {
-        synchronized(renderLock) {
-            players.clear();
-            players.putAll(newPlayers);
-        }
-        repaint();
+    // Mapa concorrente mantido pelo cliente; as posições são lidas a cada pintura
+    public void setPlayers(Map<Integer, GameCore.PlayerState> players) {
+        this.players = players;
     }
     
-    public void updateNPCs(Map<Integer, NPC> newNPCs) {
-        synchronized(renderLock) {
-            npcs.clear();
-            npcs.putAll(newNPCs);
-        }
-        repaint();
+    public void setNPCStore(EntityStore npcStore) {
+        this.npcStore = npcStore;
     }
     
     @Override
@@ -143,10 +112,7 @@ public class SpriteRenderer extends JPanel {
             g2d.setComposite(AlphaComposite.SrcOver);
             
             // Renderizar entidades
-            synchronized(renderLock) {
-                renderPlayers(g2d);
-                renderNPCs(g2d);
-            }
+            renderEntities(g2d, camera.getPosition().x, camera.getPosition().y, getWidth(), getHeight());
             
             g2d.dispose();
         } while (backBuffer.contentsLost());
@@ -155,69 +121,48 @@ public class SpriteRenderer extends JPanel {
         g.drawImage(backBuffer, 0, 0, null);
     }
     
-    private void renderPlayers(Graphics2D g2d) {
-        Rectangle viewport = new Rectangle(
-            camera.getPosition().x,
-            camera.getPosition().y,
-            getWidth(),
-            getHeight()
-        );
+    // Desenha players e NPCs visíveis; também usado pelo GameCanvas (renderização ativa)
+    public void renderEntities(Graphics2D g2d, int cameraX, int cameraY, int width, int height) {
+        renderPlayers(g2d, cameraX, cameraY, width, height);
+        renderNPCs(g2d, cameraX, cameraY, width, height);
+    }
+    
+    private void renderPlayers(Graphics2D g2d, int cameraX, int cameraY, int width, int height) {
+        int playerBase = playerSpriteBase;
         
         for (GameCore.PlayerState player : players.values()) {
             Point worldPos = player.getPosition();
-            if (isInViewport(worldPos, viewport)) {
-                Point screenPos = camera.worldToScreen(worldPos);
-                String frameKey = player.getDirection() + (player.getSpriteIndex() + 1);
-                Rectangle frameRect = playerFrameCoordinates.get(frameKey);
-                
-                if (frameRect != null) {
-                    g2d.drawImage(spriteSheet,
-                        screenPos.x,
-                        screenPos.y,
-                        screenPos.x + frameRect.width,
-                        screenPos.y + frameRect.height,
-                        frameRect.x,
-                        frameRect.y,
-                        frameRect.x + frameRect.width,
-                        frameRect.y + frameRect.height,
-                        null);
+            if (isInViewport(worldPos.x, worldPos.y, cameraX, cameraY, width, height)) {
+                BufferedImage frame = atlas.getFrame(playerBase, player.getDirectionCode(), player.getSpriteIndex());
+                if (frame != null) {
+                    g2d.drawImage(frame, worldPos.x - cameraX, worldPos.y - cameraY, null);
                 }
             }
         }
     }
     
-    private void renderNPCs(Graphics2D g2d) {
-        Rectangle viewport = new Rectangle(
-            camera.getPosition().x,
-            camera.getPosition().y,
-            getWidth(),
-            getHeight()
-        );
+    // Percorre as colunas do EntityStore; o tipo já foi resolvido para uma base na criação do NPC
+    private void renderNPCs(Graphics2D g2d, int cameraX, int cameraY, int width, int height) {
+        EntityStore store = npcStore;
+        if (store == null) return;
         
-        for (NPC npc : npcs.values()) {
-            Point worldPos = npc.getPosition();
-            if (isInViewport(worldPos, viewport)) {
-                Point screenPos = camera.worldToScreen(worldPos);
-                String frameKey = npc.getNPCType() + "_" + npc.getDirection() + (npc.getSpriteIndex() + 1);
-                Rectangle frameRect = npcFrameCoordinates.get(frameKey);
-                
-                if (frameRect != null) {
-                    g2d.drawImage(npcSpriteSheet,
-                        screenPos.x,
-                        screenPos.y,
-                        screenPos.x + frameRect.width,
-                        screenPos.y + frameRect.height,
-                        frameRect.x,
-                        frameRect.y,
-                        frameRect.x + frameRect.width,
-                        frameRect.y + frameRect.height,
-                        null);
+        for (int slot = 0; slot < store.getSlotLimit(); slot++) {
+            Entity entity = store.getEntity(slot);
+            if (!(entity instanceof NPC)) continue;
+            NPC npc = (NPC) entity;
+            int x = store.getX(slot);
+            int y = store.getY(slot);
+            if (isInViewport(x, y, cameraX, cameraY, width, height)) {
+                BufferedImage frame = atlas.getFrame(npc.getSpriteBase(), store.getDirectionCode(slot), store.getSpriteIndex(slot));
+                if (frame != null) {
+                    g2d.drawImage(frame, x - cameraX, y - cameraY, null);
                 }
             }
         }
     }
     
-    private boolean isInViewport(Point worldPos, Rectangle viewport) {
-        return viewport.contains(worldPos.x, worldPos.y);
+    private boolean isInViewport(int worldX, int worldY, int cameraX, int cameraY, int width, int height) {
+        return worldX >= cameraX && worldX < cameraX + width
+            && worldY >= cameraY && worldY < cameraY + height;
     }
 }
\ No newline at end of file
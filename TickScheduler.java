@@ -0,0 +1,187 @@
+// TickScheduler.java
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Motor de ticks em passo fixo sobre System.nanoTime().
+ * Roda em uma thread dedicada, mede duração e jitter de cada tick e aplica
+ * uma política quando um tick estoura o orçamento:
+ *  - SKIP: descarta os ticks perdidos e realinha com a grade de tempo;
+ *  - CATCH_UP: executa os ticks atrasados em sequência, até um limite;
+ *  - DEGRADE: aumenta o período enquanto houver estouro e volta aos poucos.
+ * O relógio do tick (número e timestamp) é único para toda a lógica do jogo.
+ */
+public class TickScheduler {
+    public enum OverrunPolicy {
+        SKIP,
+        CATCH_UP,
+        DEGRADE
+    }
+
+    public interface TickListener {
+        void onTick(TickClock clock);
+    }
+
+    // Relógio compartilhado: escrito apenas pela thread de tick
+    public static class TickClock {
+        private final long originNanos;
+        private final long originMillis;
+        private volatile long tick;
+        private volatile long tickNanos;
+        private volatile long tickMillis;
+
+        TickClock() {
+            this.originNanos = System.nanoTime();
+            this.originMillis = System.currentTimeMillis();
+            this.tickNanos = originNanos;
+            this.tickMillis = originMillis;
+        }
+
+        void advance(long scheduledNanos) {
+            tickNanos = scheduledNanos;
+            tickMillis = originMillis + TimeUnit.NANOSECONDS.toMillis(scheduledNanos - originNanos);
+            tick++;
+        }
+
+        public long getTick() { return tick; }
+        public long getTimeNanos() { return tickNanos; }
+        // Tempo em ms na mesma base de System.currentTimeMillis(), mas monotônico
+        public long getTimeMillis() { return tickMillis; }
+    }
+
+    private static final int MAX_DEGRADE_FACTOR = 4;
+
+    private final String name;
+    private final long periodNanos;
+    private final OverrunPolicy policy;
+    private final int maxCatchUpTicks;
+    private final TickListener listener;
+    private final TickClock clock;
+    private volatile boolean running;
+    private Thread thread;
+
+    // Métricas
+    private volatile long lastTickDurationNanos;
+    private volatile long maxTickDurationNanos;
+    private volatile long maxJitterNanos;
+    private volatile long averageTickDurationNanos;
+    private volatile long overrunCount;
+    private volatile long skippedTicks;
+    private volatile int degradeFactor = 1;
+
+    public TickScheduler(String name, long periodNanos, OverrunPolicy policy, int maxCatchUpTicks, TickListener listener) {
+        this.name = name;
+        this.periodNanos = periodNanos;
+        this.policy = policy;
+        this.maxCatchUpTicks = Math.max(1, maxCatchUpTicks);
+        this.listener = listener;
+        this.clock = new TickClock();
+    }
+
+    public static TickScheduler ofRate(String name, int ticksPerSecond, OverrunPolicy policy, int maxCatchUpTicks, TickListener listener) {
+        return new TickScheduler(name, TimeUnit.SECONDS.toNanos(1) / ticksPerSecond, policy, maxCatchUpTicks, listener);
+    }
+
+    public void start() {
+        running = true;
+        thread = new Thread(this::runLoop, name);
+        thread.setPriority(Thread.MAX_PRIORITY);
+        thread.start();
+    }
+
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void runLoop() {
+        long nextTick = System.nanoTime();
+
+        while (running) {
+            long now = System.nanoTime();
+            if (now < nextTick) {
+                LockSupport.parkNanos(nextTick - now);
+                continue;   // reavalia: parkNanos pode acordar antes
+            }
+
+            long jitter = now - nextTick;
+            if (jitter > maxJitterNanos) maxJitterNanos = jitter;
+
+            clock.advance(nextTick);
+            try {
+                listener.onTick(clock);
+            } catch (RuntimeException e) {
+                System.err.println("Erro no tick " + clock.getTick() + ": " + e.getMessage());
+                e.printStackTrace();
+            }
+
+            long end = System.nanoTime();
+            recordDuration(end - now);
+            nextTick = scheduleNext(nextTick, end);
+        }
+    }
+
+    private long scheduleNext(long scheduled, long now) {
+        long period = periodNanos * degradeFactor;
+        long next = scheduled + period;
+        long behind = now - next;
+
+        if (behind < 0) {
+            // Dentro do orçamento: no modo DEGRADE volta gradualmente ao período normal
+            if (policy == OverrunPolicy.DEGRADE && degradeFactor > 1 && -behind > period / 2) {
+                degradeFactor--;
+            }
+            return next;
+        }
+
+        overrunCount++;
+        long missed = behind / period + 1;
+        switch (policy) {
+            case SKIP:
+                skippedTicks += missed;
+                return next + missed * period;
+            case CATCH_UP:
+                if (missed > maxCatchUpTicks) {
+                    skippedTicks += missed - maxCatchUpTicks;
+                    return next + (missed - maxCatchUpTicks) * period;
+                }
+                return next;
+            case DEGRADE:
+            default:
+                degradeFactor = Math.min(MAX_DEGRADE_FACTOR, degradeFactor * 2);
+                skippedTicks += missed;
+                return now;
+        }
+    }
+
+    private void recordDuration(long duration) {
+        lastTickDurationNanos = duration;
+        if (duration > maxTickDurationNanos) maxTickDurationNanos = duration;
+        // Média móvel exponencial (peso 1/16)
+        averageTickDurationNanos += (duration - averageTickDurationNanos) >> 4;
+    }
+
+    // Retorna o maior jitter observado desde a última chamada e zera o acumulador
+    public long getAndResetMaxJitterNanos() {
+        long value = maxJitterNanos;
+        maxJitterNanos = 0;
+        return value;
+    }
+
+    public long getAndResetMaxTickDurationNanos() {
+        long value = maxTickDurationNanos;
+        maxTickDurationNanos = 0;
+        return value;
+    }
+
+    public TickClock getClock() { return clock; }
+    public long getPeriodNanos() { return periodNanos; }
+    public OverrunPolicy getPolicy() { return policy; }
+    public long getLastTickDurationNanos() { return lastTickDurationNanos; }
+    public long getAverageTickDurationNanos() { return averageTickDurationNanos; }
+    public long getOverrunCount() { return overrunCount; }
+    public long getSkippedTicks() { return skippedTicks; }
+    public int getDegradeFactor() { return degradeFactor; }
+}
@@ -0,0 +1,124 @@
+// TileChunkCache.java
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache LRU de blocos (chunks) de tiles já desenhados.
+ * Cada chunk é pintado uma vez com todas as camadas estáticas e depois copiado
+ * para a tela com um único drawImage, em vez de um drawImage por tile e camada.
+ *
+ * Com uma GraphicsConfiguration (componente na tela), os chunks são
+ * VolatileImages na memória de vídeo: a cada uso são validados e repintados se
+ * o conteúdo foi perdido (troca de modo de vídeo, tela bloqueada etc.).
+ * Sem ela (renderização fora da tela, modo headless), usa BufferedImages.
+ * Com uma cor de fundo, os chunks são opacos (a cópia para a tela dispensa
+ * composição alfa); sem ela, são transparentes onde não há tile.
+ * Usado apenas pela thread de pintura; não é thread-safe.
+ */
+public class TileChunkCache {
+    public interface ChunkPainter {
+        // Pinta o chunk (chunkX, chunkY) com a origem no canto superior esquerdo do chunk
+        void paintChunk(Graphics2D g, int chunkX, int chunkY);
+    }
+
+    private final int chunkWidth;
+    private final int chunkHeight;
+    private final ChunkPainter painter;
+    private final Color background;   // null = chunks transparentes
+    private final Map<Long, Image> chunks;
+    private long paintedChunks;
+
+    public TileChunkCache(int chunkWidth, int chunkHeight, int maxChunks, Color background, ChunkPainter painter) {
+        this.chunkWidth = chunkWidth;
+        this.chunkHeight = chunkHeight;
+        this.painter = painter;
+        this.background = background;
+        this.chunks = new LinkedHashMap<Long, Image>(maxChunks, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Image> eldest) {
+                if (size() <= maxChunks) return false;
+                eldest.getValue().flush();   // libera a memória de vídeo na hora
+                return true;
+            }
+        };
+    }
+
+    // Desenha o chunk na posição de tela, pintando-o antes se não estiver no cache ou tiver sido perdido
+    public void draw(Graphics g, GraphicsConfiguration gc, int chunkX, int chunkY, int screenX, int screenY) {
+        long key = ((long) chunkY << 32) | (chunkX & 0xFFFFFFFFL);
+        Image image = chunks.get(key);
+
+        if (gc == null) {
+            if (!(image instanceof BufferedImage)) {
+                BufferedImage buffer = new BufferedImage(chunkWidth, chunkHeight,
+                    background != null ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB_PRE);
+                paint(buffer.createGraphics(), chunkX, chunkY);
+                replace(key, image, buffer);
+                image = buffer;
+            }
+            g.drawImage(image, screenX, screenY, null);
+            return;
+        }
+
+        VolatileImage chunk = image instanceof VolatileImage ? (VolatileImage) image : null;
+        do {
+            int status = chunk != null ? chunk.validate(gc) : VolatileImage.IMAGE_INCOMPATIBLE;
+            if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+                VolatileImage created = gc.createCompatibleVolatileImage(chunkWidth, chunkHeight,
+                    background != null ? Transparency.OPAQUE : Transparency.TRANSLUCENT);
+                replace(key, chunk != null ? chunk : image, created);
+                chunk = created;
+                status = VolatileImage.IMAGE_RESTORED;
+            }
+            if (status == VolatileImage.IMAGE_RESTORED) {
+                paint(chunk.createGraphics(), chunkX, chunkY);
+            }
+            g.drawImage(chunk, screenX, screenY, null);
+        } while (chunk.contentsLost());
+    }
+
+    private void paint(Graphics2D g, int chunkX, int chunkY) {
+        try {
+            // Áreas sem tile mostram o fundo, como no desenho por tile
+            if (background != null) {
+                g.setColor(background);
+                g.fillRect(0, 0, chunkWidth, chunkHeight);
+            } else {
+                g.setComposite(AlphaComposite.Clear);
+                g.fillRect(0, 0, chunkWidth, chunkHeight);
+                g.setComposite(AlphaComposite.SrcOver);
+            }
+            painter.paintChunk(g, chunkX, chunkY);
+        } finally {
+            g.dispose();
+        }
+        paintedChunks++;
+    }
+
+    private void replace(long key, Image previous, Image image) {
+        if (previous != null) {
+            previous.flush();
+        }
+        chunks.put(key, image);
+    }
+
+    // Descarta todos os chunks (novo mapa ou tiles alterados)
+    public void clear() {
+        for (Image image : chunks.values()) {
+            image.flush();
+        }
+        chunks.clear();
+    }
+
+    public int size() { return chunks.size(); }
+    public long getPaintedChunks() { return paintedChunks; }
+}
@@ -1,27 +1,36 @@
 //TiledMapRenderer.java
-import org.w3c.dom.*;
-import javax.xml.parsers.*;
 import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.io.*;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import javax.imageio.ImageIO;
 import javax.swing.JPanel;
-import java.util.Base64;
 
 public class TiledMapRenderer extends JPanel {
-    private BufferedImage tilesetImage;
+    private static final int CHUNK_TILES = 16;    // tiles por lado de cada chunk pré-desenhado
+    private static final int MAX_CHUNKS = 32;     // 32 chunks de 512x512 = 32 MB; a tela usa no máximo 9
+    private static final int GID_MASK = 0x1FFFFFFF;   // remove os bits de espelhamento do Tiled
+    
+    private BufferedImage[] tilesetImages = new BufferedImage[0];
     private int mapWidth;
     private int mapHeight;
     private int tileWidth;
     private int tileHeight;
     private int[][] layers;
-    private final List<Rectangle> colliders;
-    private final Map<Integer, Rectangle> tilesetCoordinates;
+    private CollisionMap collisionMap;
+    // Origem de cada tile, indexada pelo ID global (0 = vazio): tileset, posição e tamanho na imagem
+    private int[] tileSourceSet = new int[0];
+    private int[] tileSourceX = new int[0];
+    private int[] tileSourceY = new int[0];
+    private int[] tileSourceW = new int[0];
+    private int[] tileSourceH = new int[0];
+    // Tiles maiores que a grade invadem as células acima e à direita: linhas abaixo e
+    // colunas à esquerda de um chunk que ainda podem desenhar dentro dele
+    private int overflowRows;
+    private int overflowColumns;
     private Camera camera;
+    private TileChunkCache chunkCache;
     
     public void setCamera(Camera camera) {
         this.camera = camera;
@@ -43,144 +52,87 @@ public class TiledMapRenderer extends JPanel {
         return tileHeight;
     }
     
-    public TiledMapRenderer() {
-        this.colliders = new ArrayList<>();
-        this.tilesetCoordinates = new HashMap<>();
+    // Método público para carregar colisores de um mapa (usa o mapa compilado, se houver)
+    public CollisionMap loadColliders(String mapPath) {
+        return CompiledMap.load(mapPath).getCollisionMap();
     }
     
-    private float parseFloatAttribute(Element element, String attribute, float defaultValue) {
-        String value = element.getAttribute(attribute);
-        if (value == null || value.trim().isEmpty()) {
-            System.out.println("Atenção: " + attribute + " atributo está vazio e utilizará o valor definido: " + defaultValue);
-            return defaultValue;
-        }
-        try {
-            return Float.parseFloat(value);
-        } catch (NumberFormatException e) {
-            System.out.println("Atenção: " + attribute + " atributo está vazio e utilizará o valor definido: " + defaultValue);
-            return defaultValue;
-        }
+    public void loadMap(String mapPath) {
+        loadMap(CompiledMap.load(mapPath));
     }
     
-    // Método público para carregar colisores de um mapa
-    public List<Rectangle> loadColliders(String mapPath) {
-        List<Rectangle> tempColliders = new ArrayList<>();
-        
+    public void loadMap(CompiledMap map) {
         try {
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            Document doc = builder.parse(new File(mapPath));
+            mapWidth = map.getWidth();
+            mapHeight = map.getHeight();
+            tileWidth = map.getTileWidth();
+            tileHeight = map.getTileHeight();
+            layers = map.getLayers();
+            collisionMap = map.getCollisionMap();
             
-            NodeList objectGroups = doc.getElementsByTagName("objectgroup");
-            for (int i = 0; i < objectGroups.getLength(); i++) {
-                Element objectGroup = (Element) objectGroups.item(i);
-                if ("colisores".equals(objectGroup.getAttribute("name"))) {
-                    NodeList objects = objectGroup.getElementsByTagName("object");
-                    for (int j = 0; j < objects.getLength(); j++) {
-                        Element object = (Element) objects.item(j);
-                        
-                        int x = (int) parseFloatAttribute(object, "x", 0);
-                        int y = (int) parseFloatAttribute(object, "y", 0);
-                        int width = (int) parseFloatAttribute(object, "width", 32);
-                        int height = (int) parseFloatAttribute(object, "height", 32);
-                        
-                        tempColliders.add(new Rectangle(x, y, width, height));
-                    }
-                }
+            // Chunks e tabelas de tiles do mapa anterior não valem mais, mesmo que este não tenha tileset
+            if (chunkCache != null) {
+                chunkCache.clear();
+                chunkCache = null;
             }
+            loadTilesets(map.getTilesets());
+            if (map.getTilesets().isEmpty()) return;
+            
+            // Painel opaco: o fundo vai dentro do chunk e a cópia para a tela é direta
+            chunkCache = new TileChunkCache(CHUNK_TILES * tileWidth, CHUNK_TILES * tileHeight, MAX_CHUNKS,
+                isOpaque() ? getBackground() : null, this::paintChunk);
+            
         } catch (Exception e) {
-            System.err.println("Erro ao carregar colisores: " + mapPath);
+            System.err.println("Erro ao carregar o tileset do mapa");
             e.printStackTrace();
         }
-        
-        return tempColliders;
     }
     
-    public void loadMap(String mapPath) {
-        try {
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            Document doc = builder.parse(new File(mapPath));
-            
-            // Carregar propriedades básicas do mapa
-            Element mapElement = doc.getDocumentElement();
-            mapWidth = Integer.parseInt(mapElement.getAttribute("width"));
-            mapHeight = Integer.parseInt(mapElement.getAttribute("height"));
-            tileWidth = Integer.parseInt(mapElement.getAttribute("tilewidth"));
-            tileHeight = Integer.parseInt(mapElement.getAttribute("tileheight"));
-            
-            // Carregar tileset
-            NodeList tilesets = doc.getElementsByTagName("tileset");
-            Element tileset = (Element) tilesets.item(0);
-            Element image = (Element) tileset.getElementsByTagName("image").item(0);
-            String tilesetPath = image.getAttribute("source");
-            
+    // Carrega a imagem de cada tileset e monta a tabela ID global -> origem do tile
+    private void loadTilesets(List<CompiledMap.Tileset> tilesets) {
+        BufferedImage[] images = new BufferedImage[tilesets.size()];
+        int[] columns = new int[tilesets.size()];
+        int[] counts = new int[tilesets.size()];
+        int maxGid = 0;
+        int maxTileWidth = tileWidth;
+        int maxTileHeight = tileHeight;
+        for (int i = 0; i < images.length; i++) {
+            CompiledMap.Tileset tileset = tilesets.get(i);
             // Ajustar caminho do tileset (assumindo que está em uma pasta resources)
-            tilesetPath = tilesetPath.replace("../mapresources/", "/resources/");
-            tilesetImage = ImageIO.read(getClass().getResourceAsStream(tilesetPath));
-            
-            // Inicializar coordenadas do tileset
-            int tilesetCols = tilesetImage.getWidth() / tileWidth;
-            int tilesetRows = tilesetImage.getHeight() / tileHeight;
-            for (int y = 0; y < tilesetRows; y++) {
-                for (int x = 0; x < tilesetCols; x++) {
-                    int tileId = y * tilesetCols + x + 1;
-                    tilesetCoordinates.put(tileId, new Rectangle(
-                        x * tileWidth,
-                        y * tileHeight,
-                        tileWidth,
-                        tileHeight
-                    ));
-                }
+            String tilesetPath = tileset.imageSource.replace("../mapresources/", "/resources/");
+            try {
+                images[i] = ImageIO.read(getClass().getResourceAsStream(tilesetPath));
+            } catch (Exception e) {
+                System.err.println("Erro ao carregar o tileset: " + tilesetPath);
+                continue;
             }
-            
-            // Carregar camadas
-            NodeList layerNodes = doc.getElementsByTagName("layer");
-            layers = new int[layerNodes.getLength()][mapWidth * mapHeight];
-            
-            for (int l = 0; l < layerNodes.getLength(); l++) {
-                Element layer = (Element) layerNodes.item(l);
-                Element data = (Element) layer.getElementsByTagName("data").item(0);
-                String encoding = data.getAttribute("encoding");
-                
-                if ("base64".equals(encoding)) {
-                    String base64Data = data.getTextContent().trim();
-                    byte[] decoded = Base64.getDecoder().decode(base64Data);
-                    
-                    // Converter bytes em IDs de tiles
-                    for (int i = 0; i < mapWidth * mapHeight; i++) {
-                        int id = decoded[i * 4] & 0xFF |
-                                (decoded[i * 4 + 1] & 0xFF) << 8 |
-                                (decoded[i * 4 + 2] & 0xFF) << 16 |
-                                (decoded[i * 4 + 3] & 0xFF) << 24;
-                        layers[l][i] = id;
-                    }
-                }
-            }
-            
-            // Carregar colisores
-            NodeList objectGroups = doc.getElementsByTagName("objectgroup");
-            for (int i = 0; i < objectGroups.getLength(); i++) {
-                Element objectGroup = (Element) objectGroups.item(i);
-                if ("colisores".equals(objectGroup.getAttribute("name"))) {
-                    NodeList objects = objectGroup.getElementsByTagName("object");
-                    for (int j = 0; j < objects.getLength(); j++) {
-                        Element object = (Element) objects.item(j);
-                        
-                        int x = (int) parseFloatAttribute(object, "x", 0);
-                        int y = (int) parseFloatAttribute(object, "y", 0);
-                        int width = (int) parseFloatAttribute(object, "width", 32);
-                        int height = (int) parseFloatAttribute(object, "height", 32);
-                        
-                        this.colliders.add(new Rectangle(x, y, width, height));
-                    }
-                }
+            columns[i] = images[i].getWidth() / tileset.tileWidth;
+            counts[i] = columns[i] * (images[i].getHeight() / tileset.tileHeight);
+            maxGid = Math.max(maxGid, tileset.firstGid + counts[i]);
+            maxTileWidth = Math.max(maxTileWidth, tileset.tileWidth);
+            maxTileHeight = Math.max(maxTileHeight, tileset.tileHeight);
+        }
+        overflowColumns = (maxTileWidth - 1) / tileWidth;
+        overflowRows = (maxTileHeight - 1) / tileHeight;
+        
+        tileSourceSet = new int[maxGid];
+        tileSourceX = new int[maxGid];
+        tileSourceY = new int[maxGid];
+        tileSourceW = new int[maxGid];
+        tileSourceH = new int[maxGid];
+        Arrays.fill(tileSourceSet, -1);
+        for (int i = 0; i < images.length; i++) {
+            CompiledMap.Tileset tileset = tilesets.get(i);
+            for (int tile = 0; tile < counts[i]; tile++) {
+                int gid = tileset.firstGid + tile;
+                tileSourceSet[gid] = i;
+                tileSourceX[gid] = (tile % columns[i]) * tileset.tileWidth;
+                tileSourceY[gid] = (tile / columns[i]) * tileset.tileHeight;
+                tileSourceW[gid] = tileset.tileWidth;
+                tileSourceH[gid] = tileset.tileHeight;
             }
-            
-        } catch (Exception e) {
-            System.err.println("Erro ao carregar o mapa: " + mapPath);
-            e.printStackTrace();
         }
+        tilesetImages = images;
     }
     
     @Override
@@ -190,46 +142,72 @@ public class TiledMapRenderer extends JPanel {
         if (camera == null) return;
         
         Point cameraPos = camera.getPosition();
+        renderMap(g, getGraphicsConfiguration(), cameraPos.x, cameraPos.y, getWidth(), getHeight());
+    }
+    
+    // Desenha a área visível do mapa; também usado pelo GameCanvas (renderização ativa)
+    public void renderMap(Graphics g, GraphicsConfiguration gc, int cameraX, int cameraY, int width, int height) {
+        if (chunkCache == null) return;
         
-        // Calcula a área visível do mapa
-        int startTileX = cameraPos.x / tileWidth;
-        int startTileY = cameraPos.y / tileHeight;
-        int endTileX = startTileX + (getWidth() / tileWidth) + 2;
-        int endTileY = startTileY + (getHeight() / tileHeight) + 2;
+        int chunkWidth = CHUNK_TILES * tileWidth;
+        int chunkHeight = CHUNK_TILES * tileHeight;
         
-        // Limita às dimensões do mapa
-        startTileX = Math.max(0, startTileX);
-        startTileY = Math.max(0, startTileY);
-        endTileX = Math.min(mapWidth, endTileX);
-        endTileY = Math.min(mapHeight, endTileY);
+        // Calcula os chunks visíveis, limitados às dimensões do mapa
+        int startChunkX = Math.max(0, Math.floorDiv(cameraX, chunkWidth));
+        int startChunkY = Math.max(0, Math.floorDiv(cameraY, chunkHeight));
+        int endChunkX = Math.min((mapWidth - 1) / CHUNK_TILES, Math.floorDiv(cameraX + width - 1, chunkWidth));
+        int endChunkY = Math.min((mapHeight - 1) / CHUNK_TILES, Math.floorDiv(cameraY + height - 1, chunkHeight));
+        
+        // Um drawImage por chunk; os tiles só são desenhados quando o chunk entra no cache
+        for (int chunkY = startChunkY; chunkY <= endChunkY; chunkY++) {
+            for (int chunkX = startChunkX; chunkX <= endChunkX; chunkX++) {
+                chunkCache.draw(g, gc, chunkX, chunkY,
+                    chunkX * chunkWidth - cameraX,
+                    chunkY * chunkHeight - cameraY);
+            }
+        }
+    }
+    
+    // Desenha todas as camadas de um chunk, na ordem do mapa. Inclui as células vizinhas
+    // (abaixo e à esquerda) cujos tiles altos ou largos alcançam o chunk; o resto é recortado.
+    private void paintChunk(Graphics2D g, int chunkX, int chunkY) {
+        int startTileX = chunkX * CHUNK_TILES;
+        int startTileY = chunkY * CHUNK_TILES;
+        int firstTileX = Math.max(0, startTileX - overflowColumns);
+        int endTileX = Math.min(mapWidth, startTileX + CHUNK_TILES);
+        int endTileY = Math.min(mapHeight, startTileY + CHUNK_TILES + overflowRows);
         
-        // Renderiza apenas os tiles visíveis
         for (int[] layer : layers) {
             for (int y = startTileY; y < endTileY; y++) {
-                for (int x = startTileX; x < endTileX; x++) {
-                    int tileId = layer[y * mapWidth + x];
-                    if (tileId != 0) {
-                        Rectangle tileCoords = tilesetCoordinates.get(tileId);
-                        if (tileCoords != null) {
-                            g.drawImage(tilesetImage,
-                                x * tileWidth - cameraPos.x,
-                                y * tileHeight - cameraPos.y,
-                                (x + 1) * tileWidth - cameraPos.x,
-                                (y + 1) * tileHeight - cameraPos.y,
-                                tileCoords.x,
-                                tileCoords.y,
-                                tileCoords.x + tileCoords.width,
-                                tileCoords.y + tileCoords.height,
-                                null);
-                        }
-                    }
+                for (int x = firstTileX; x < endTileX; x++) {
+                    int tileId = layer[y * mapWidth + x] & GID_MASK;
+                    if (tileId <= 0 || tileId >= tileSourceSet.length || tileSourceSet[tileId] < 0) continue;
+                    int sx = tileSourceX[tileId];
+                    int sy = tileSourceY[tileId];
+                    int sw = tileSourceW[tileId];
+                    int sh = tileSourceH[tileId];
+                    // Tiles maiores que a grade ficam alinhados pela base da célula, como no Tiled
+                    int dx = (x - startTileX) * tileWidth;
+                    int dy = (y - startTileY) * tileHeight + tileHeight - sh;
+                    g.drawImage(tilesetImages[tileSourceSet[tileId]],
+                        dx, dy, dx + sw, dy + sh,
+                        sx, sy, sx + sw, sy + sh,
+                        null);
                 }
             }
         }
     }
     
+    public long getPaintedChunks() {
+        return chunkCache != null ? chunkCache.getPaintedChunks() : 0;
+    }
+    
+    public CollisionMap getCollisionMap() {
+        return collisionMap;
+    }
+    
     public List<Rectangle> getColliders() {
-        return new ArrayList<>(this.colliders);
+        return collisionMap != null ? collisionMap.toRectangles() : new ArrayList<>();
     }
     
     @Override
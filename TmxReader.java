@@ -0,0 +1,397 @@
+// TmxReader.java
+import java.awt.Rectangle;
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Leitor de TMX em streaming (StAX), usado pelo servidor e pelo cliente via CompiledMap.
+ * Uma única passada pelo arquivo, sem árvore DOM: o texto de cada <data> é
+ * consumido como um InputStream (base64 -> zlib/gzip -> IDs) direto para o int[]
+ * da camada, então a memória extra fica limitada aos buffers dos decodificadores,
+ * não ao tamanho do XML. Suporta camadas em base64 (sem compressão, zlib ou gzip),
+ * CSV e <tile gid>, vários tilesets (inclusive externos, .tsx) e grupos de
+ * objetos com propriedades. Mapas infinitos (<chunk>) e zstd não são suportados.
+ */
+public class TmxReader {
+    private static final String COLLIDER_GROUP = "colisores";
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    private final File file;
+    private int width;
+    private int height;
+    private int tileWidth = 32;
+    private int tileHeight = 32;
+    private final List<CompiledMap.Tileset> tilesets = new ArrayList<>();
+    private final List<String> layerNames = new ArrayList<>();
+    private final List<int[]> layers = new ArrayList<>();
+    private final List<Rectangle> colliders = new ArrayList<>();
+    private final List<CompiledMap.MapObject> objects = new ArrayList<>();
+
+    private TmxReader(File file) {
+        this.file = file;
+    }
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);   // texto em pedaços, sem juntar o <data> inteiro
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    public static CompiledMap read(String tmxPath) throws IOException {
+        TmxReader reader = new TmxReader(new File(tmxPath));
+        try (InputStream in = new BufferedInputStream(new FileInputStream(reader.file))) {
+            XMLStreamReader xml = FACTORY.createXMLStreamReader(in);
+            try {
+                reader.readMap(xml);
+            } finally {
+                xml.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("TMX inválido: " + tmxPath + " (" + e.getMessage() + ")", e);
+        }
+        return reader.build();
+    }
+
+    private CompiledMap build() {
+        CollisionMap collisionMap = new CollisionMap(colliders, width, height, tileWidth, tileHeight, CollisionMap.COLLIDER_BUFFER);
+        return new CompiledMap(width, height, tileWidth, tileHeight, tilesets, layerNames,
+            layers.toArray(new int[0][]), collisionMap, objects);
+    }
+
+    private void readMap(XMLStreamReader xml) throws XMLStreamException, IOException {
+        String objectGroup = null;
+        CompiledMap.MapObject object = null;
+        Map<String, String> objectProperties = null;
+
+        while (xml.hasNext()) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                switch (xml.getLocalName()) {
+                    case "objectgroup":
+                        objectGroup = null;
+                        break;
+                    case "object":
+                        if (object != null) {
+                            objects.add(new CompiledMap.MapObject(object.group, object.name, object.type, object.bounds, objectProperties));
+                        }
+                        object = null;
+                        objectProperties = null;
+                        break;
+                }
+                continue;
+            }
+            if (event != XMLStreamConstants.START_ELEMENT) continue;
+
+            switch (xml.getLocalName()) {
+                case "map":
+                    if (!"orthogonal".equals(attribute(xml, "orientation", "orthogonal"))) {
+                        throw new IOException("Orientação não suportada: " + attribute(xml, "orientation", ""));
+                    }
+                    width = intAttribute(xml, "width", 0);
+                    height = intAttribute(xml, "height", 0);
+                    tileWidth = intAttribute(xml, "tilewidth", 32);
+                    tileHeight = intAttribute(xml, "tileheight", 32);
+                    break;
+                case "tileset":
+                    readTileset(xml);
+                    break;
+                case "layer":
+                    layerNames.add(attribute(xml, "name", ""));
+                    layers.add(new int[width * height]);
+                    break;
+                case "data":
+                    readData(xml, layers.get(layers.size() - 1));
+                    break;
+                case "objectgroup":
+                    objectGroup = attribute(xml, "name", "");
+                    break;
+                case "object":
+                    if (objectGroup == null) break;
+                    Rectangle bounds = new Rectangle(intAttribute(xml, "x", 0), intAttribute(xml, "y", 0),
+                        intAttribute(xml, "width", 0), intAttribute(xml, "height", 0));
+                    if (COLLIDER_GROUP.equals(objectGroup)) {
+                        // Colisores sem tamanho explícito ocupam um tile, como no CollisionMap original
+                        if (xml.getAttributeValue(null, "width") == null) bounds.width = 32;
+                        if (xml.getAttributeValue(null, "height") == null) bounds.height = 32;
+                        colliders.add(bounds);
+                    } else {
+                        String type = attribute(xml, "type", "");
+                        if (type.isEmpty()) type = attribute(xml, "class", "");   // Tiled 1.9+
+                        object = new CompiledMap.MapObject(objectGroup, attribute(xml, "name", ""), type, bounds, null);
+                        objectProperties = new LinkedHashMap<>();
+                    }
+                    break;
+                case "property":
+                    if (objectProperties != null) {
+                        objectProperties.put(attribute(xml, "name", ""), attribute(xml, "value", ""));
+                    }
+                    break;
+                case "chunk":
+                    throw new IOException("Mapas infinitos não são suportados: " + file);
+            }
+        }
+    }
+
+    // Tileset embutido ou externo (source="x.tsx", relativo ao TMX)
+    private void readTileset(XMLStreamReader xml) throws XMLStreamException, IOException {
+        int firstGid = intAttribute(xml, "firstgid", 1);
+        String source = xml.getAttributeValue(null, "source");
+        if (source == null) {
+            readTilesetBody(xml, firstGid);
+            return;
+        }
+        File tsx = new File(file.getParentFile(), source);
+        try (InputStream in = new BufferedInputStream(new FileInputStream(tsx))) {
+            XMLStreamReader external = FACTORY.createXMLStreamReader(in);
+            try {
+                while (external.hasNext()) {
+                    if (external.next() == XMLStreamConstants.START_ELEMENT && "tileset".equals(external.getLocalName())) {
+                        readTilesetBody(external, firstGid);
+                        break;
+                    }
+                }
+            } finally {
+                external.close();
+            }
+        }
+        skipElement(xml);
+    }
+
+    // Lê atributos e <image> do elemento <tileset> atual, até o fim dele
+    private void readTilesetBody(XMLStreamReader xml, int firstGid) throws XMLStreamException {
+        String name = attribute(xml, "name", "");
+        int setTileWidth = intAttribute(xml, "tilewidth", tileWidth);
+        int setTileHeight = intAttribute(xml, "tileheight", tileHeight);
+        int tileCount = intAttribute(xml, "tilecount", 0);
+        int columns = intAttribute(xml, "columns", 0);
+        String image = "";
+        int depth = 1;
+        while (depth > 0 && xml.hasNext()) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+                if (depth == 2 && "image".equals(xml.getLocalName())) {
+                    image = attribute(xml, "source", "");
+                    int imageWidth = intAttribute(xml, "width", 0);
+                    int imageHeight = intAttribute(xml, "height", 0);
+                    // Tilesets antigos não trazem columns/tilecount: deriva da imagem
+                    if (columns == 0 && setTileWidth > 0) columns = imageWidth / setTileWidth;
+                    if (tileCount == 0 && setTileHeight > 0) tileCount = columns * (imageHeight / setTileHeight);
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+        tilesets.add(new CompiledMap.Tileset(firstGid, name, setTileWidth, setTileHeight, tileCount, columns, image));
+    }
+
+    private void readData(XMLStreamReader xml, int[] target) throws XMLStreamException, IOException {
+        String encoding = attribute(xml, "encoding", "");
+        String compression = attribute(xml, "compression", "");
+        if (encoding.isEmpty()) {
+            readTileElements(xml, target);
+            return;
+        }
+
+        TextInputStream text = new TextInputStream(xml);
+        if ("csv".equals(encoding)) {
+            readCsv(text, target);
+        } else if ("base64".equals(encoding)) {
+            InputStream bytes = Base64.getMimeDecoder().wrap(text);
+            switch (compression) {
+                case "":
+                    break;
+                case "zlib":
+                    bytes = new InflaterInputStream(bytes);
+                    break;
+                case "gzip":
+                    bytes = new GZIPInputStream(bytes);
+                    break;
+                default:
+                    throw new IOException("Compressão de camada não suportada: " + compression);
+            }
+            readLittleEndianInts(bytes, target);
+        } else {
+            throw new IOException("Codificação de camada não suportada: " + encoding);
+        }
+        text.skipToEnd();   // o <data> termina no END_ELEMENT consumido aqui
+    }
+
+    // IDs de 4 bytes little-endian, como grava o Tiled
+    private static void readLittleEndianInts(InputStream in, int[] target) throws IOException {
+        byte[] chunk = new byte[4096];
+        int index = 0;
+        int pending = 0;
+        int shift = 0;
+        int read;
+        while (index < target.length && (read = in.read(chunk)) > 0) {
+            for (int i = 0; i < read && index < target.length; i++) {
+                pending |= (chunk[i] & 0xFF) << shift;
+                shift += 8;
+                if (shift == 32) {
+                    target[index++] = pending;
+                    pending = 0;
+                    shift = 0;
+                }
+            }
+        }
+        if (index < target.length) {
+            throw new EOFException("Camada com " + index + " tiles, esperados " + target.length);
+        }
+    }
+
+    private static void readCsv(InputStream in, int[] target) throws IOException {
+        int index = 0;
+        long value = 0;
+        boolean inNumber = false;
+        int c;
+        while ((c = in.read()) >= 0) {
+            if (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                inNumber = true;
+            } else if (inNumber) {
+                if (index < target.length) target[index] = (int) value;   // GIDs com bits de espelhamento cabem em 32 bits
+                index++;
+                value = 0;
+                inNumber = false;
+            }
+        }
+        if (inNumber) {
+            if (index < target.length) target[index] = (int) value;
+            index++;
+        }
+        if (index != target.length) {
+            throw new IOException("Camada CSV com " + index + " tiles, esperados " + target.length);
+        }
+    }
+
+    // Formato XML antigo: um <tile gid="..."/> por célula
+    private static void readTileElements(XMLStreamReader xml, int[] target) throws XMLStreamException {
+        int index = 0;
+        int depth = 1;
+        while (depth > 0 && xml.hasNext()) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+                if ("tile".equals(xml.getLocalName()) && index < target.length) {
+                    target[index++] = (int) Long.parseLong(attribute(xml, "gid", "0"));
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private static void skipElement(XMLStreamReader xml) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && xml.hasNext()) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) depth++;
+            else if (event == XMLStreamConstants.END_ELEMENT) depth--;
+        }
+    }
+
+    private static String attribute(XMLStreamReader xml, String name, String defaultValue) {
+        String value = xml.getAttributeValue(null, name);
+        return value != null ? value : defaultValue;
+    }
+
+    private static int intAttribute(XMLStreamReader xml, String name, int defaultValue) {
+        String value = xml.getAttributeValue(null, name);
+        if (value == null || value.trim().isEmpty()) return defaultValue;
+        try {
+            return (int) Float.parseFloat(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Texto do elemento atual como bytes (ASCII: base64 ou CSV), puxado do
+     * XMLStreamReader sob demanda até o END_ELEMENT, sem montar a String inteira.
+     */
+    private static class TextInputStream extends InputStream {
+        private final XMLStreamReader xml;
+        private final char[] chars = new char[4096];
+        private int position;
+        private int limit;
+        private int textOffset;     // quanto do evento de texto atual já foi copiado
+        private boolean inText;
+        private boolean ended;
+
+        TextInputStream(XMLStreamReader xml) {
+            this.xml = xml;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (position == limit && !fill()) return -1;
+            return chars[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) throws IOException {
+            if (length == 0) return 0;
+            if (position == limit && !fill()) return -1;
+            int count = Math.min(length, limit - position);
+            for (int i = 0; i < count; i++) {
+                target[offset + i] = (byte) chars[position + i];
+            }
+            position += count;
+            return count;
+        }
+
+        private boolean fill() throws IOException {
+            try {
+                while (!ended) {
+                    if (inText) {
+                        int copied = xml.getTextCharacters(textOffset, chars, 0, chars.length);
+                        if (copied > 0) {
+                            textOffset += copied;
+                            position = 0;
+                            limit = copied;
+                            return true;
+                        }
+                        inText = false;
+                    }
+                    int event = xml.next();
+                    if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA
+                            || event == XMLStreamConstants.SPACE) {
+                        inText = true;
+                        textOffset = 0;
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        ended = true;
+                    }
+                }
+                return false;
+            } catch (XMLStreamException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+
+        // Descarta o que sobrou do texto (espaços finais, checksum do gzip) até o fim do elemento
+        void skipToEnd() throws IOException {
+            position = limit;
+            while (fill()) {
+                position = limit;
+            }
+        }
+    }
+}
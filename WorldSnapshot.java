@@ -0,0 +1,131 @@
+// WorldSnapshot.java
+import java.util.Arrays;
+
+/**
+ * Estado do mundo ao final de um tick, lido sem travas pela thread de envio.
+ * Buffers trocados, sem cópia: o tick preenche um snapshot que só ele possui
+ * (clear, addPlayer, addNPC, publish) e o publica por uma AtomicReference; a
+ * thread de envio o toma para si e, ao terminar, o devolve para ser preenchido
+ * de novo. Depois de publicado ele só é lido. Os arrays crescem e são
+ * reaproveitados, então em regime o tick não aloca.
+ * Players vêm primeiro (índices 0..playerCount-1), seguidos pelos NPCs.
+ */
+public final class WorldSnapshot {
+    private static final int INITIAL_CAPACITY = 256;
+
+    private long tick;
+    private long timeMillis;
+    private int count;
+    private int playerCount;
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private int[] xs = new int[INITIAL_CAPACITY];
+    private int[] ys = new int[INITIAL_CAPACITY];
+    private byte[] directions = new byte[INITIAL_CAPACITY];
+    private byte[] spriteIndexes = new byte[INITIAL_CAPACITY];
+    private boolean[] moving = new boolean[INITIAL_CAPACITY];
+    private String[] npcTypes = new String[INITIAL_CAPACITY];
+    private int[] inputSequences = new int[INITIAL_CAPACITY];   // só players: último input processado
+    private long[] movementStates = new long[INITIAL_CAPACITY]; // só players: PlayerMovement.encodeState
+    private int[] idTable = new int[INITIAL_CAPACITY * 2];      // endereçamento aberto: SnapshotCodec.entityKey -> índice + 1
+
+    public long getTick() { return tick; }
+    public long getTimeMillis() { return timeMillis; }
+    public int size() { return count; }
+    public int getPlayerCount() { return playerCount; }
+    public int getId(int index) { return ids[index]; }
+    public int getX(int index) { return xs[index]; }
+    public int getY(int index) { return ys[index]; }
+    public int getDirectionCode(int index) { return directions[index]; }
+    public String getDirection(int index) { return SnapshotCodec.directionName(directions[index]); }
+    public int getSpriteIndex(int index) { return spriteIndexes[index]; }
+    public boolean isMoving(int index) { return moving[index]; }
+    public boolean isNPC(int index) { return index >= playerCount; }
+    public int getEntityKey(int index) { return SnapshotCodec.entityKey(ids[index], isNPC(index)); }
+    public String getNPCType(int index) { return npcTypes[index]; }
+    public int getInputSequence(int index) { return inputSequences[index]; }
+    public long getMovementState(int index) { return movementStates[index]; }
+
+    // Índice do player com o id informado, ou -1; NPCs com o mesmo id não contam
+    public int indexOfPlayer(int id) {
+        int key = SnapshotCodec.entityKey(id, false);
+        int mask = idTable.length - 1;
+        for (int slot = mix(key) & mask; idTable[slot] != 0; slot = (slot + 1) & mask) {
+            int index = idTable[slot] - 1;
+            if (getEntityKey(index) == key) return index;
+        }
+        return -1;
+    }
+
+    private static int mix(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    // ---- Escrita: só pelo dono atual, antes de publish ----
+
+    public void clear() {
+        Arrays.fill(npcTypes, 0, count, null);
+        count = 0;
+        playerCount = 0;
+    }
+
+    // Players devem ser adicionados antes dos NPCs
+    public void addPlayer(int id, int x, int y, String direction, int spriteIndex, boolean isMoving,
+                          int inputSequence, long movementState) {
+        add(id, x, y, direction, spriteIndex, isMoving, null);
+        inputSequences[playerCount] = inputSequence;
+        movementStates[playerCount] = movementState;
+        playerCount++;
+    }
+
+    public void addNPC(int id, int x, int y, String direction, int spriteIndex, boolean isMoving, String npcType) {
+        add(id, x, y, direction, spriteIndex, isMoving, npcType);
+    }
+
+    private void add(int id, int x, int y, String direction, int spriteIndex, boolean isMoving, String npcType) {
+        if (count == ids.length) {
+            grow();
+        }
+        ids[count] = id;
+        xs[count] = x;
+        ys[count] = y;
+        directions[count] = (byte) SnapshotCodec.directionCode(direction);
+        spriteIndexes[count] = (byte) spriteIndex;
+        moving[count] = isMoving;
+        npcTypes[count] = npcType;
+        count++;
+    }
+
+    // Fecha o snapshot do tick e monta o índice de busca; depois disto só há leituras
+    public void publish(long tick, long timeMillis) {
+        this.tick = tick;
+        this.timeMillis = timeMillis;
+        int capacity = Integer.highestOneBit(Math.max(1, count) * 2) * 2;
+        if (idTable.length < capacity) {
+            idTable = new int[capacity];
+        } else {
+            Arrays.fill(idTable, 0);
+        }
+        int mask = idTable.length - 1;
+        for (int i = 0; i < count; i++) {
+            int slot = mix(getEntityKey(i)) & mask;
+            while (idTable[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            idTable[slot] = i + 1;
+        }
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        xs = Arrays.copyOf(xs, capacity);
+        ys = Arrays.copyOf(ys, capacity);
+        directions = Arrays.copyOf(directions, capacity);
+        spriteIndexes = Arrays.copyOf(spriteIndexes, capacity);
+        moving = Arrays.copyOf(moving, capacity);
+        npcTypes = Arrays.copyOf(npcTypes, capacity);
+        inputSequences = Arrays.copyOf(inputSequences, capacity);
+        movementStates = Arrays.copyOf(movementStates, capacity);
+    }
+}
@@ -0,0 +1,400 @@
+// Zone.java
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Uma região do mundo: um mapa com a sua colisão, NPCs, players e loop de tick.
+ * Cada zona tem as próprias threads de tick e de envio, então zonas diferentes
+ * simulam em paralelo e a capacidade do servidor cresce com os núcleos; só o
+ * pool de NPCs é compartilhado.
+ *
+ * Players trocam de zona pelos portais do mapa (grupo "portais", propriedade
+ * "destino" com o nome da zona e, opcionais, "destinoX"/"destinoY" em pixels;
+ * sem eles, um ponto de spawn do destino). A passagem é sem travas: o tick da
+ * origem tira o player da sua lista e o entrega à thread de envio da própria
+ * zona, que, depois do último frame enviado por ela, o põe na fila de chegadas
+ * (ConcurrentLinkedQueue) do destino; o tick do destino o adota no início do
+ * tick seguinte. Em cada momento um único tick é dono do player.
+ */
+public class Zone {
+    private static final int MOVE_DELAY = 16;
+    private static final int MAX_CATCH_UP_TICKS = 3;   // ticks atrasados executados em sequência
+    private static final long SLOW_CLIENT_BACKLOG = 64 * 1024;      // bytes pendentes antes de pular snapshots
+    private static final long SLOW_CLIENT_TIMEOUT = 5000;           // ms acima do limite antes de desconectar
+    private static final long STATS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final int TILE_SIZE = 32;
+    private static final String SPAWN_GROUP = "spawns";
+    private static final String PORTAL_GROUP = "portais";
+
+    // Passagem de um player para outra zona; x < 0 = ponto de spawn do destino
+    private static class Handoff {
+        final ClientConnection client;
+        final Zone target;
+        final int x;
+        final int y;
+
+        Handoff(ClientConnection client, Zone target, int x, int y) {
+            this.client = client;
+            this.target = target;
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    private static class Portal {
+        final Rectangle bounds;
+        final Zone target;
+        final int targetX;
+        final int targetY;
+
+        Portal(Rectangle bounds, Zone target, int targetX, int targetY) {
+            this.bounds = bounds;
+            this.target = target;
+            this.targetX = targetX;
+            this.targetY = targetY;
+        }
+    }
+
+    private final String name;
+    private final String mapPath;
+    private final List<ClientConnection> clients = new CopyOnWriteArrayList<>();
+    private final NPCManager npcManager;
+    private final NPCSimulation npcSimulation;
+    private final PathfindingService pathfindingService;
+    private final int mapWidth;
+    private final int mapHeight;
+    private final CollisionMap collisionMap;
+    private final List<CompiledMap.MapObject> spawnPoints;   // grupo "spawns" do mapa; vazio = posição aleatória
+    private final List<CompiledMap.MapObject> portalObjects;
+    private Portal[] portals = new Portal[0];
+    private final Random random = new Random();
+    private final TickScheduler tickScheduler;
+    private final TickScheduler.TickClock tickClock;
+    private final InterestEncoder interestEncoder;
+    // Snapshots trocados entre o tick e a thread de envio, sem cópia (ver WorldSnapshot)
+    private final AtomicReference<WorldSnapshot> latestSnapshot = new AtomicReference<>();     // tick -> envio
+    private final AtomicReference<WorldSnapshot> releasedSnapshot = new AtomicReference<>();   // envio -> tick
+    private WorldSnapshot spareSnapshot;   // do tick: publicado e não tomado, ou devolvido
+    private final AtomicBoolean pendingBroadcast = new AtomicBoolean(false);
+    private final AtomicBoolean membershipChanged = new AtomicBoolean(false);
+    private final ConcurrentLinkedQueue<Handoff> arrivals = new ConcurrentLinkedQueue<>();     // qualquer thread -> tick
+    private final ConcurrentLinkedQueue<Handoff> departures = new ConcurrentLinkedQueue<>();   // tick -> thread de envio
+    private final LongSupplier pendingBytes;
+    private Thread broadcastThread;
+    private volatile long evictedClients;
+    private volatile long skippedSnapshots;
+
+    public Zone(String name, ForkJoinPool npcPool, int pathfindingThreads, LongSupplier pendingBytes) {
+        this.name = name;
+        this.mapPath = mapPath(name);
+        this.pendingBytes = pendingBytes;
+
+        // Mapa compilado (MapCompiler) ou, se faltar ou estiver desatualizado, o TMX
+        CompiledMap map = CompiledMap.load(mapPath);
+        mapWidth = map.getWidth() > 0 ? map.getPixelWidth() : 40 * 32;
+        mapHeight = map.getHeight() > 0 ? map.getPixelHeight() : 30 * 32;
+        collisionMap = map.getCollisionMap();
+        spawnPoints = map.getObjects(SPAWN_GROUP);
+        portalObjects = map.getObjects(PORTAL_GROUP);
+        interestEncoder = new InterestEncoder(mapWidth, mapHeight);
+
+        npcManager = new NPCManager();
+        npcManager.loadNPCsFromMap("resources/npcs/" + name + "_npcs.json");
+        npcSimulation = new NPCSimulation(npcManager.getStore(), mapWidth, mapHeight, npcPool);
+
+        // Rotas de NPCs calculadas fora do tick sobre a grade caminhável do mapa
+        pathfindingService = new PathfindingService(collisionMap, mapWidth / TILE_SIZE, mapHeight / TILE_SIZE,
+            TILE_SIZE, TILE_SIZE, pathfindingThreads);
+        npcManager.setPathfinder(pathfindingService);
+
+        tickScheduler = new TickScheduler(
+            "zone-" + name + "-tick",
+            TimeUnit.MILLISECONDS.toNanos(MOVE_DELAY),
+            TickScheduler.OverrunPolicy.CATCH_UP,
+            MAX_CATCH_UP_TICKS,
+            this::tick
+        );
+        tickClock = tickScheduler.getClock();
+    }
+
+    public static String mapPath(String zoneName) {
+        return "resources/maps/" + zoneName + ".tmx";
+    }
+
+    // Resolve os destinos dos portais depois que todas as zonas foram criadas
+    public void linkPortals(Map<String, Zone> zones) {
+        List<Portal> linked = new ArrayList<>();
+        for (CompiledMap.MapObject object : portalObjects) {
+            String destination = object.getProperty("destino", object.name);
+            Zone target = zones.get(destination);
+            if (target == null) {
+                System.out.println("Portal ignorado em " + name + ": zona '" + destination + "' não carregada");
+                continue;
+            }
+            linked.add(new Portal(object.bounds, target,
+                parseCoordinate(object.getProperty("destinoX", null)),
+                parseCoordinate(object.getProperty("destinoY", null))));
+        }
+        portals = linked.toArray(new Portal[0]);
+    }
+
+    private static int parseCoordinate(String value) {
+        if (value == null) return -1;
+        try {
+            return (int) Float.parseFloat(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    public void start() {
+        broadcastThread = new Thread(this::broadcastLoop, "zone-" + name + "-broadcast");
+        broadcastThread.setDaemon(true);
+        broadcastThread.start();
+        tickScheduler.start();
+        System.out.println("Zona " + name + " iniciada: " + mapWidth + "x" + mapHeight + " px, "
+            + portals.length + " portais");
+    }
+
+    // Pode ser chamado por qualquer thread; o player entra no próximo tick
+    public void enqueue(ClientConnection client) {
+        arrivals.offer(new Handoff(client, this, -1, -1));
+    }
+
+    private void tick(TickScheduler.TickClock clock) {
+        adoptArrivals();
+
+        // Players também definem quais regiões de NPCs ficam acordadas neste tick
+        boolean anyPlayerMoved = false;
+        npcSimulation.clearActivity();
+        for (ClientConnection client : clients) {
+            if (client.isClosed()) {
+                clients.remove(client);
+                membershipChanged.set(true);
+                continue;
+            }
+            if (client.updateMovement()) {
+                anyPlayerMoved = true;
+                if (enterPortal(client)) continue;
+            }
+            Point position = client.getPlayerState().getPosition();
+            npcSimulation.markPlayer(position.x, position.y);
+        }
+
+        // Atualizar NPCs
+        boolean anyNPCMoved = updateNPCs();
+
+        publishSnapshot(clock);
+        if (anyPlayerMoved || anyNPCMoved || membershipChanged.getAndSet(false)) {
+            pendingBroadcast.set(true);
+            LockSupport.unpark(broadcastThread);
+        }
+    }
+
+    // Players que chegaram (conexão nova ou portal): passam a usar o mapa desta zona
+    private void adoptArrivals() {
+        Handoff arrival;
+        while ((arrival = arrivals.poll()) != null) {
+            ClientConnection client = arrival.client;
+            if (client.isClosed()) continue;   // desconectou no caminho
+
+            int x = arrival.x;
+            int y = arrival.y;
+            if (x < 0 || y < 0) {
+                Point spawn = randomSpawn();
+                x = spawn.x;
+                y = spawn.y;
+            }
+            client.enterZone(collisionMap, mapWidth, mapHeight, x, y);
+            client.setInsidePortal(findPortal(client) != null);
+            // Antes de qualquer snapshot desta zona: o cliente troca o mapa primeiro
+            client.send(SnapshotCodec.encodeZone(new SnapshotCodec.ZoneInfo(name, mapPath)));
+            clients.add(client);
+            membershipChanged.set(true);
+        }
+    }
+
+    private Point randomSpawn() {
+        if (spawnPoints.isEmpty()) {
+            return new Point(random.nextInt(mapWidth - 50), random.nextInt(mapHeight - 50));
+        }
+        CompiledMap.MapObject spawn = spawnPoints.get(random.nextInt(spawnPoints.size()));
+        return new Point(spawn.bounds.x, spawn.bounds.y);
+    }
+
+    // Só dispara ao entrar no portal; quem chega sobre um precisa sair dele antes
+    private boolean enterPortal(ClientConnection client) {
+        Portal portal = findPortal(client);
+        if (portal == null) {
+            client.setInsidePortal(false);
+            return false;
+        }
+        if (client.isInsidePortal()) return false;
+
+        clients.remove(client);
+        membershipChanged.set(true);
+        departures.offer(new Handoff(client, portal.target, portal.targetX, portal.targetY));
+        return true;
+    }
+
+    private Portal findPortal(ClientConnection client) {
+        for (Portal portal : portals) {
+            if (client.overlaps(portal.bounds)) return portal;
+        }
+        return null;
+    }
+
+    // Preenche um snapshot livre com o estado do tick e publica para leitura sem travas
+    private void publishSnapshot(TickScheduler.TickClock clock) {
+        WorldSnapshot snapshot = spareSnapshot != null ? spareSnapshot : releasedSnapshot.getAndSet(null);
+        if (snapshot == null) {
+            snapshot = new WorldSnapshot();   // um em envio, outro publicado: só até o envio devolver
+        }
+        snapshot.clear();
+        for (ClientConnection client : clients) {
+            GameCore.PlayerState state = client.getPlayerState();
+            snapshot.addPlayer(
+                state.getId(),
+                state.getPosition().x,
+                state.getPosition().y,
+                state.getDirection(),
+                state.getSpriteIndex(),
+                client.isMoving(),
+                client.getLastInputSequence(),
+                client.getMovementState()
+            );
+        }
+        // Apenas NPCs acordados, lidos direto das colunas do EntityStore; dormentes não são replicados
+        EntityStore store = npcManager.getStore();
+        int[] awakeSlots = npcSimulation.getAwakeSlots();
+        for (int i = 0; i < npcSimulation.getAwakeCount(); i++) {
+            int slot = awakeSlots[i];
+            NPC npc = (NPC) store.getEntity(slot);
+            snapshot.addNPC(
+                store.getId(slot),
+                store.getX(slot),
+                store.getY(slot),
+                npc.getDirection(),
+                store.getSpriteIndex(slot),
+                store.isMoving(slot),
+                npc.getNPCType()
+            );
+        }
+        snapshot.publish(clock.getTick(), clock.getTimeMillis());
+        // O anterior que a thread de envio não tomou volta para o tick
+        spareSnapshot = latestSnapshot.getAndSet(snapshot);
+    }
+
+    // Thread de envio: serializa o último snapshot publicado enquanto o tick seguinte simula
+    private void broadcastLoop() {
+        long nextStats = System.nanoTime() + STATS_INTERVAL_NANOS;
+        while (true) {
+            long now = System.nanoTime();
+            try {
+                if (now >= nextStats) {
+                    nextStats = now + STATS_INTERVAL_NANOS;
+                    broadcastServerStats();
+                }
+                if (pendingBroadcast.getAndSet(false)) {
+                    // Toma o snapshot para si; o tick não o preenche até ele ser devolvido
+                    WorldSnapshot snapshot = latestSnapshot.getAndSet(null);
+                    if (snapshot != null) {
+                        try {
+                            broadcastGameState(snapshot);
+                        } finally {
+                            releasedSnapshot.set(snapshot);
+                        }
+                    }
+                }
+            } catch (RuntimeException e) {
+                // Como no TickScheduler: perde este envio, mas a thread continua
+                System.err.println("Erro no envio da zona " + name + ": " + e.getMessage());
+                e.printStackTrace();
+            }
+            // Só depois do último frame desta zona o player segue para o destino
+            forwardDepartures();
+            if (!pendingBroadcast.get()) {
+                LockSupport.parkNanos(this, nextStats - System.nanoTime());
+            }
+        }
+    }
+
+    private void forwardDepartures() {
+        Handoff departure;
+        while ((departure = departures.poll()) != null) {
+            departure.target.arrivals.offer(departure);
+        }
+    }
+
+    // Métricas do tick para ferramentas externas (ex.: BotLoadGenerator)
+    private void broadcastServerStats() {
+        if (clients.isEmpty()) return;
+        ByteBuffer frame = SnapshotCodec.encodeServerStats(new SnapshotCodec.ServerStats(
+            tickClock.getTick(),
+            clients.size(),
+            TimeUnit.NANOSECONDS.toMicros(tickScheduler.getAverageTickDurationNanos()),
+            TimeUnit.NANOSECONDS.toMicros(tickScheduler.getAndResetMaxTickDurationNanos()),
+            tickScheduler.getOverrunCount(),
+            pendingBytes.getAsLong()
+        ));
+        for (ClientConnection client : clients) {
+            client.send(frame.duplicate());
+        }
+    }
+
+    // Único estágio de simulação dos NPCs, executado pela thread de tick
+    private boolean updateNPCs() {
+        return npcSimulation.update();
+    }
+
+    private void broadcastGameState(WorldSnapshot snapshot) {
+        long now = snapshot.getTimeMillis();
+
+        // Registro de cada entidade codificado uma única vez para todos os clientes
+        interestEncoder.index(snapshot);
+
+        // Cada cliente recebe apenas o que está dentro do seu raio de visão
+        for (ClientConnection client : clients) {
+            int self = snapshot.indexOfPlayer(client.getPlayerId());
+            if (self < 0) continue;   // entrou depois deste snapshot
+
+            long pending = client.getConnection().getPendingBytes();
+            if (pending > SLOW_CLIENT_BACKLOG) {
+                // Cliente lento: pula snapshots até a fila esvaziar e desconecta se persistir
+                skippedSnapshots++;
+                if (client.backlogSince == 0) {
+                    client.backlogSince = now;
+                } else if (now - client.backlogSince > SLOW_CLIENT_TIMEOUT) {
+                    System.out.println("Desconectando cliente lento " + client.getPlayerId() + ": "
+                        + client.getConnection().getPendingBytes() + " bytes pendentes");
+                    evictedClients++;
+                    client.close();   // o tick tira o cliente da zona
+                }
+                continue;
+            }
+            client.backlogSince = 0;
+
+            if (client.send(interestEncoder.encodeFor(client, snapshot, self))) {
+                client.commitKnownEntities();
+            }
+        }
+    }
+
+    public String getName() { return name; }
+    public int getClientCount() { return clients.size(); }
+    public long getEvictedClients() { return evictedClients; }
+    public long getSkippedSnapshots() { return skippedSnapshots; }
+}